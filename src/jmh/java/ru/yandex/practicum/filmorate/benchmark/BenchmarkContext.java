@@ -0,0 +1,122 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.dataset.DatasetGenerator;
+import ru.yandex.practicum.filmorate.dataset.DatasetSpec;
+import ru.yandex.practicum.filmorate.service.PopularityLeaderboard;
+import ru.yandex.practicum.filmorate.storage.film.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmLikeDbStorage;
+import ru.yandex.practicum.filmorate.storage.friend.FriendDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Запуск приложения поверх H2 в памяти для бенчмарков.
+ */
+final class BenchmarkContext {
+    private static final AtomicInteger DATABASE_COUNTER = new AtomicInteger();
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * Поднимает контекст приложения с новой пустой базой данных.
+     *
+     * @return контекст приложения
+     */
+    static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(FilmorateApplication.class)
+                .web(WebApplicationType.NONE)
+                // Аргументы командной строки переопределяют application.properties, в отличие от properties().
+                .run(arguments("--filmorate.db.bulkhead.max-concurrent=64"));
+    }
+
+    /**
+     * Поднимает приложение с веб-сервером на случайном порту и новой пустой базой данных.
+     * Каждое соединение с БД удерживается дополнительно {@code dbLatency} до начала работы с ним,
+     * что моделирует задержку сети и выполнения запросов на реальной БД. Ограничитель
+     * {@code BulkheadDataSource} оборачивает источник с задержкой, поэтому разрешение занято всё это время.
+     *
+     * @param dbLatency задержка каждого обращения к БД
+     * @param arguments дополнительные свойства в формате аргументов командной строки, заменяют значения по умолчанию
+     * @return контекст приложения, порт доступен в свойстве {@code local.server.port}
+     */
+    static ConfigurableApplicationContext startServer(Duration dbLatency, String... arguments) {
+        return new SpringApplicationBuilder(FilmorateApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .initializers(context -> context.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+                    @Override
+                    public Object postProcessAfterInitialization(Object bean, String beanName) {
+                        return bean instanceof DataSource dataSource && !(bean instanceof LatencyDataSource)
+                                ? new LatencyDataSource(dataSource, dbLatency) : bean;
+                    }
+                }))
+                .run(arguments(arguments));
+    }
+
+    // Повторённое свойство командной строки Spring склеивает через запятую, поэтому переопределения заменяют
+    // значения по умолчанию, а не добавляются к ним.
+    private static String[] arguments(String... overrides) {
+        Map<String, String> arguments = new LinkedHashMap<>();
+        for (String argument : List.of(
+                "--spring.datasource.url=jdbc:h2:mem:bench" + DATABASE_COUNTER.incrementAndGet() + ";DB_CLOSE_DELAY=-1",
+                "--spring.main.banner-mode=off",
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--logging.level.org.zalando.logbook=OFF")) {
+            arguments.put(argument.substring(0, argument.indexOf('=')), argument);
+        }
+        for (String argument : overrides) {
+            arguments.put(argument.substring(0, argument.indexOf('=')), argument);
+        }
+        return arguments.values().toArray(String[]::new);
+    }
+
+    /**
+     * Заполняет базу контекста синтетическими данными и перечитывает индексы в памяти.
+     *
+     * @param context контекст приложения
+     * @param spec    параметры набора данных
+     */
+    static void seed(ConfigurableApplicationContext context, DatasetSpec spec) {
+        new DatasetGenerator(context.getBean(DataSource.class), spec).generate();
+        reloadIndexes(context);
+    }
+
+    /**
+     * Возвращает JdbcTemplate контекста.
+     *
+     * @param context контекст приложения
+     * @return JdbcTemplate
+     */
+    static JdbcTemplate jdbcTemplate(ConfigurableApplicationContext context) {
+        return context.getBean(JdbcTemplate.class);
+    }
+
+    /**
+     * Перечитывает индексы в памяти после заполнения базы в обход хранилищ.
+     *
+     * @param context контекст приложения
+     */
+    static void reloadIndexes(ConfigurableApplicationContext context) {
+        context.getBean(FilmDbStorage.class).loadFilmIds();
+        context.getBean(FilmDbStorage.class).loadSearchIndex();
+        context.getBean(UserDbStorage.class).loadUserIds();
+        context.getBean(FriendDbStorage.class).loadFriendGraph();
+        context.getBean(FilmLikeDbStorage.class).loadLikeIndex();
+        context.getBean(PopularityLeaderboard.class).load();
+        context.getBean(CachingFilmStorage.class).evictAll();
+    }
+}
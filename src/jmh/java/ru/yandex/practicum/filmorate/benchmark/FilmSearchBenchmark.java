@@ -0,0 +1,97 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.dataset.DatasetSpec;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Полнотекстовый поиск фильмов по {@link FilmSearchIndex} в сравнении с поиском {@code LIKE '%..%'} в БД.
+ * Запросы составляются из слов случайных фильмов каталога, поэтому частые слова встречаются в запросах чаще.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FilmSearchBenchmark {
+    private static final int QUERIES = 1000;
+    private static final int LIMIT = 10;
+    private static final int PREFIX_LENGTH = 3;
+
+    @Param({"500000"})
+    public int films;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private FilmSearchIndex filmSearchIndex;
+    private FilmService filmService;
+    private final List<String> words = new ArrayList<>();
+    private final List<String> prefixes = new ArrayList<>();
+    private final List<String> phrases = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seed(context, DatasetSpec.builder()
+                .films(films).users(1000).likesPerUser(20).friendsPerUser(0).build());
+        jdbcTemplate = BenchmarkContext.jdbcTemplate(context);
+        filmSearchIndex = context.getBean(FilmSearchIndex.class);
+        filmService = context.getBean(FilmService.class);
+        for (int i = 0; i < QUERIES; i++) {
+            int filmId = 1 + ThreadLocalRandom.current().nextInt(films);
+            List<String> tokens = FilmSearchIndex.tokenize(jdbcTemplate.queryForObject(
+                    "SELECT film_name || ' ' || description FROM films WHERE film_id = ?", String.class, filmId));
+            String word = tokens.get(ThreadLocalRandom.current().nextInt(tokens.size()));
+            words.add(word);
+            prefixes.add(word.substring(0, Math.min(PREFIX_LENGTH, word.length())));
+            phrases.add(tokens.size() > 1 ? tokens.get(0) + " " + tokens.get(1) : word);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int[] indexSearchWord() {
+        return filmSearchIndex.search(random(words), LIMIT, id -> 0);
+    }
+
+    @Benchmark
+    public int[] indexSearchPrefix() {
+        return filmSearchIndex.search(random(prefixes), LIMIT, id -> 0);
+    }
+
+    @Benchmark
+    public int[] indexSearchPhrase() {
+        return filmSearchIndex.search(random(phrases), LIMIT, id -> 0);
+    }
+
+    @Benchmark
+    public List<Film> serviceSearchWord() {
+        return filmService.searchFilms(random(words), LIMIT);
+    }
+
+    @Benchmark
+    public List<Integer> likeScanWord() {
+        String pattern = "%" + random(words) + "%";
+        return jdbcTemplate.queryForList("SELECT film_id FROM films " +
+                "WHERE LOWER(film_name) LIKE ? OR LOWER(description) LIKE ? LIMIT " + LIMIT,
+                Integer.class, pattern, pattern);
+    }
+
+    private static String random(List<String> queries) {
+        return queries.get(ThreadLocalRandom.current().nextInt(queries.size()));
+    }
+}
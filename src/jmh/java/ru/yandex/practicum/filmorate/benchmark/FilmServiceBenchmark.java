@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.dataset.DatasetSpec;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запись лайков и рекомендации в {@link FilmService}.
+ * Лайк ставится и сразу снимается, чтобы каждая итерация работала с одинаковыми данными.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmServiceBenchmark {
+    @Param({"10000"})
+    public int films;
+    @Param({"10000"})
+    public int users;
+    @Param({"20"})
+    public int likesPerUser;
+
+    private ConfigurableApplicationContext context;
+    private FilmService filmService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seed(context, DatasetSpec.builder()
+                .films(films).users(users).likesPerUser(likesPerUser).friendsPerUser(0).build());
+        // Новый пользователь без лайков, чтобы добавление никогда не конфликтовало с существующими.
+        BenchmarkContext.jdbcTemplate(context).update("INSERT INTO users (user_id, email, login, birthday) " +
+                "VALUES (?, 'bench@mail.ru', 'bench', DATE '1990-01-01')", users + 1);
+        BenchmarkContext.reloadIndexes(context);
+        filmService = context.getBean(FilmService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void addAndRemoveLike() {
+        int filmId = 1 + ThreadLocalRandom.current().nextInt(films);
+        filmService.addLike(filmId, users + 1);
+        filmService.removeLike(filmId, users + 1);
+    }
+
+    @Benchmark
+    public List<Film> getRecommendations() {
+        return filmService.getRecommendations(1 + ThreadLocalRandom.current().nextInt(users), 10);
+    }
+}
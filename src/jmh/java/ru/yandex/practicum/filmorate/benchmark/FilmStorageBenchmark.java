@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.dataset.DatasetSpec;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение фильмов из {@link FilmDbStorage} и выбор популярных фильмов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmStorageBenchmark {
+    @Param({"1000", "10000"})
+    public int films;
+    @Param({"1000"})
+    public int users;
+    @Param({"20"})
+    public int likesPerUser;
+
+    private ConfigurableApplicationContext context;
+    private FilmDbStorage filmDbStorage;
+    private FilmService filmService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seed(context, DatasetSpec.builder()
+                .films(films).users(users).likesPerUser(likesPerUser).friendsPerUser(0).build());
+        filmDbStorage = context.getBean(FilmDbStorage.class);
+        filmService = context.getBean(FilmService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Film> getAllFilms() {
+        return filmDbStorage.getAllFilms();
+    }
+
+    @Benchmark
+    public Optional<Film> getFilmById() {
+        return filmDbStorage.getFilmById(1 + ThreadLocalRandom.current().nextInt(films));
+    }
+
+    @Benchmark
+    public List<Film> getMostPopularFilms() {
+        return filmDbStorage.getMostPopularFilms(10);
+    }
+
+    @Benchmark
+    public List<Film> getMostPopularFilmsFromLeaderboard() {
+        return filmService.getMostPopularFilms(10);
+    }
+
+    @Benchmark
+    public List<Film> getMostPopularFilmsByGenreAndYear() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return filmService.getMostPopularFilms(10, 1 + random.nextInt(6), 1900 + random.nextInt(125));
+    }
+}
@@ -0,0 +1,55 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.dataset.DatasetSpec;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.friend.FriendDbStorage;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Общие друзья и рекомендации друзей в {@link FriendDbStorage}
+ * на графе дружбы со степенным распределением количества друзей.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FriendStorageBenchmark {
+    @Param({"10000", "1000000"})
+    public int users;
+    @Param({"10"})
+    public int friendsPerUser;
+
+    private ConfigurableApplicationContext context;
+    private FriendDbStorage friendDbStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seed(context, DatasetSpec.builder()
+                .films(0).users(users).likesPerUser(0).friendsPerUser(friendsPerUser).build());
+        friendDbStorage = context.getBean(FriendDbStorage.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return friendDbStorage.getCommonFriends(1 + random.nextInt(users), 1 + random.nextInt(users));
+    }
+
+    @Benchmark
+    public List<User> getFriendSuggestions() {
+        return friendDbStorage.getFriendSuggestions(1 + ThreadLocalRandom.current().nextInt(users), 10);
+    }
+}
@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация моделей {@link Film} и {@link User} в JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+    @Param({"100"})
+    public int friendsPerUser;
+    @Param({"1000"})
+    public int listSize;
+
+    private ObjectMapper objectMapper;
+    private Film film;
+    private User user;
+    private List<Film> films;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = JsonMapper.builder().findAndAddModules().build();
+        film = film(1);
+        user = new User();
+        user.setId(1);
+        user.setEmail("user@mail.ru");
+        user.setLogin("user");
+        user.setName("User");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        for (int i = 2; i < friendsPerUser + 2; i++) {
+            user.getFriends().add(i);
+        }
+        films = new ArrayList<>(listSize);
+        for (int i = 1; i <= listSize; i++) {
+            films.add(film(i));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeFilm() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(film);
+    }
+
+    @Benchmark
+    public byte[] serializeUser() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] serializeFilmList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(films);
+    }
+
+    private static Film film(int id) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName("Film " + id);
+        film.setDescription("Description of film " + id);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(120);
+        Mpa mpa = new Mpa();
+        mpa.setId(3);
+        mpa.setName("PG-13");
+        film.setMpa(mpa);
+        for (int genreId = 1; genreId <= 3; genreId++) {
+            Genre genre = new Genre();
+            genre.setId(genreId);
+            genre.setName("Genre " + genreId);
+            film.getGenres().add(genre);
+        }
+        film.setLikesCount(id % 100);
+        return film;
+    }
+}
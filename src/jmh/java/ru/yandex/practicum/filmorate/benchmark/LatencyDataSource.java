@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Источник данных, добавляющий задержку к каждому получению соединения.
+ * Соединение пула уже занято на время задержки, как при медленном запросе к удалённой БД.
+ */
+class LatencyDataSource extends DelegatingDataSource {
+    private final Duration latency;
+
+    LatencyDataSource(DataSource dataSource, Duration latency) {
+        super(dataSource);
+        this.latency = latency;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = super.getConnection();
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            connection.close();
+            throw new SQLException("Ожидание прервано", e);
+        }
+        return connection;
+    }
+}
@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.dataset.DatasetSpec;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.FilmLikeResult;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.film.FilmLikeDbStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пакетное добавление лайков ({@code POST /films/likes/batch}) против такого же числа одиночных
+ * вызовов {@code PUT /films/{id}/like/{userId}} на уровне {@link FilmService}.
+ * Лайки ставит пользователь без лайков, после каждого вызова они удаляются одним пакетом.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LikeBatchBenchmark {
+    @Param({"10000"})
+    public int films;
+    @Param({"10000"})
+    public int users;
+    @Param({"10", "100", "1000"})
+    public int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private FilmService filmService;
+    private FilmLikeDbStorage filmLikeDbStorage;
+    private List<FilmLike> likes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seed(context, DatasetSpec.builder()
+                .films(films).users(users).likesPerUser(20).friendsPerUser(0).build());
+        BenchmarkContext.jdbcTemplate(context).update("INSERT INTO users (user_id, email, login, birthday) " +
+                "VALUES (?, 'bench@mail.ru', 'bench', DATE '1990-01-01')", users + 1);
+        BenchmarkContext.reloadIndexes(context);
+        filmService = context.getBean(FilmService.class);
+        filmLikeDbStorage = context.getBean(FilmLikeDbStorage.class);
+        likes = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            likes.add(new FilmLike(1 + i * (films / batchSize), users + 1));
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void removeLikes() {
+        filmLikeDbStorage.removeLikes(likes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<FilmLikeResult> batch() {
+        return filmService.addLikes(likes);
+    }
+
+    @Benchmark
+    public void single() {
+        for (FilmLike like : likes) {
+            filmService.addLike(like.getFilmId(), like.getUserId());
+        }
+    }
+}
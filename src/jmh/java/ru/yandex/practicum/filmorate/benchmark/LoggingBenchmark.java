@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.dataset.DatasetSpec;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Журналирование при обработке реального HTTP-запроса {@code PUT /films}. Запрос проходит фильтр Logbook,
+ * контроллер и хранилище приложения, поднятого на случайном порту.
+ * {@code OFF} — Logbook выключен, пишутся только журналы приложения уровня INFO.
+ * {@code FULL} — Logbook журналирует каждый запрос и ответ с телами (настройки по умолчанию).
+ * {@code PRODUCTION} — настройки профиля prod: 1% успешных запросов без тел, ошибки всегда.
+ * <p>
+ * После запуска приложения консольный вывод заменяется записью в файл, синхронной ({@code SYNC})
+ * или через асинхронный аппендер с ограниченной очередью ({@code ASYNC}), как в профиле prod
+ * logback-spring.xml. При переполнении очереди асинхронный аппендер отбрасывает события, поэтому
+ * в {@code ASYNC} измеряется стоимость для потока запроса, а не пропускная способность записи на диск.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingBenchmark {
+    @Param({"OFF", "FULL", "PRODUCTION"})
+    public String mode;
+    @Param({"SYNC", "ASYNC"})
+    public String appender;
+
+    private ConfigurableApplicationContext context;
+    private Path logFile;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = BenchmarkContext.startServer(Duration.ZERO,
+                "--logging.level.root=INFO",
+                "--logging.level.org.zalando.logbook=" + ("OFF".equals(mode) ? "OFF" : "TRACE"),
+                "--filmorate.logbook.sample-rate=" + ("PRODUCTION".equals(mode) ? "0.01" : "1.0"),
+                "--filmorate.logbook.error-bodies-only=" + "PRODUCTION".equals(mode));
+        BenchmarkContext.seed(context, DatasetSpec.builder()
+                .films(100).users(100).likesPerUser(5).friendsPerUser(0).build());
+        logFile = Files.createTempFile("filmorate-logging-benchmark", ".log");
+        redirectLogToFile();
+
+        Film film = context.getBean(FilmService.class).getFilmById(1);
+        String body = context.getBean(ObjectMapper.class).writeValueAsString(film);
+        String port = context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/films"))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        client.close();
+        context.close();
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).stop();
+        Files.deleteIfExists(logFile);
+    }
+
+    @Benchmark
+    public int updateFilmRequest() throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private void redirectLogToFile() {
+        LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(loggerContext);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p --- [%15.15t] %-40.40logger{39} : %m%n");
+        encoder.start();
+        FileAppender<ILoggingEvent> file = new FileAppender<>();
+        file.setContext(loggerContext);
+        file.setFile(logFile.toString());
+        file.setEncoder(encoder);
+        file.start();
+        Appender<ILoggingEvent> target = file;
+        if ("ASYNC".equals(appender)) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(loggerContext);
+            async.setQueueSize(8192);
+            async.setNeverBlock(true);
+            async.addAppender(file);
+            async.start();
+            target = async;
+        }
+        Logger root = loggerContext.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.detachAndStopAllAppenders();
+        root.addAppender(target);
+    }
+}
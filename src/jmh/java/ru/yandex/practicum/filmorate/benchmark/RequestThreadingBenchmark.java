@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.dataset.DatasetSpec;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Смешанная нагрузка при искусственной задержке БД ({@link LatencyDataSource}): 48 клиентов запрашивают
+ * {@code GET /users/{id}} (два обращения к БД), 16 — {@code GET /films/popular}, который обслуживается
+ * из рейтинга и кеша в памяти. Пул соединений — 10 соединений в обоих режимах, клиентов больше, чем
+ * потоков Tomcat ({@code tomcatThreads}), поэтому пул потоков исчерпывается.
+ * {@code PLATFORM} — пул платформенных потоков Tomcat без ограничителя: запросы ждут соединение в очереди
+ * пула, занимая потоки, и запросы без обращения к БД ждут свободный поток. {@code VIRTUAL_BULKHEAD} —
+ * виртуальные потоки (лимит потоков Tomcat не действует) и ограничитель {@code BulkheadDataSource}
+ * на 10 соединений: сверх лимита запрос ждёт не дольше времени ожидания и получает 503.
+ * <p>
+ * Режим Throughput даёт пропускную способность, SampleTime — распределение задержек, включая p99,
+ * отдельно для каждого вида запросов. Счётчики {@code ok} и {@code rejected} показывают, сколько ответов
+ * было успешными и сколько — отказами, чтобы быстрые отказы не выдавались за рост пропускной способности.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class RequestThreadingBenchmark {
+    @Param({"PLATFORM", "VIRTUAL_BULKHEAD"})
+    public String mode;
+    @Param({"10"})
+    public int dbLatencyMillis;
+    @Param({"1000"})
+    public int users;
+    @Param({"16"})
+    public int tomcatThreads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private HttpRequest popularRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean platform = "PLATFORM".equals(mode);
+        context = BenchmarkContext.startServer(Duration.ofMillis(dbLatencyMillis),
+                "--spring.datasource.hikari.maximum-pool-size=10",
+                "--server.tomcat.threads.max=" + tomcatThreads,
+                "--spring.threads.virtual.enabled=" + !platform,
+                // Без ограничителя: лимит выше числа клиентов.
+                platform ? "--filmorate.db.bulkhead.max-concurrent=100000" : "--filmorate.db.bulkhead.max-concurrent=10");
+        BenchmarkContext.seed(context, DatasetSpec.builder()
+                .films(100).users(users).likesPerUser(5).friendsPerUser(5).build());
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        popularRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/films/popular?count=10")).GET().build();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        context.close();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(48)
+    public int getUser(Responses responses) throws IOException, InterruptedException {
+        int id = 1 + ThreadLocalRandom.current().nextInt(users);
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/users/" + id)).GET().build(), responses);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(16)
+    public int getPopular(Responses responses) throws IOException, InterruptedException {
+        return send(popularRequest, responses);
+    }
+
+    private int send(HttpRequest request, Responses responses) throws IOException, InterruptedException {
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status == 200) {
+            responses.ok++;
+        } else {
+            responses.rejected++;
+        }
+        return status;
+    }
+
+    /**
+     * Количество успешных ответов и отказов на поток.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Responses {
+        public long ok;
+        public long rejected;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            ok = 0;
+            rejected = 0;
+        }
+    }
+}
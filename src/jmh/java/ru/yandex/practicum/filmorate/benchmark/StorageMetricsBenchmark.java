@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.framework.ProxyFactory;
+import ru.yandex.practicum.filmorate.monitoring.StorageMetricsInterceptor;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накладные расходы {@link StorageMetricsInterceptor} на вызов метода хранилища:
+ * прямой вызов, вызов через прокси без интерцептора и с таймером с перцентилями и гистограммой,
+ * настроенным так же, как в application.properties.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageMetricsBenchmark {
+    private CounterStorage direct;
+    private CounterStorage proxied;
+    private CounterStorage timed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        registry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                return DistributionStatisticConfig.builder()
+                        .percentiles(0.5, 0.99, 0.999)
+                        .percentilesHistogram(true)
+                        .minimumExpectedValue((double) TimeUnit.MICROSECONDS.toNanos(10))
+                        .maximumExpectedValue((double) Duration.ofSeconds(10).toNanos())
+                        .build()
+                        .merge(config);
+            }
+        });
+        direct = new CounterStorage();
+        proxied = proxy(null);
+        timed = proxy(new StorageMetricsInterceptor(() -> registry));
+    }
+
+    @Benchmark
+    public int directCall() {
+        return direct.next();
+    }
+
+    @Benchmark
+    public int proxiedCall() {
+        return proxied.next();
+    }
+
+    @Benchmark
+    public int timedCall() {
+        return timed.next();
+    }
+
+    private static CounterStorage proxy(StorageMetricsInterceptor interceptor) {
+        ProxyFactory factory = new ProxyFactory(new CounterStorage());
+        factory.setProxyTargetClass(true);
+        if (interceptor != null) {
+            factory.addAdvice(interceptor);
+        }
+        return (CounterStorage) factory.getProxy();
+    }
+
+    public static class CounterStorage {
+        private int counter;
+
+        public int next() {
+            return ++counter;
+        }
+    }
+}
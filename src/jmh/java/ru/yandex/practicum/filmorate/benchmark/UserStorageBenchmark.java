@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.dataset.DatasetSpec;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение пользователей вместе с друзьями из {@link UserDbStorage}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserStorageBenchmark {
+    @Param({"10000", "100000"})
+    public int users;
+    @Param({"10"})
+    public int friendsPerUser;
+
+    private ConfigurableApplicationContext context;
+    private UserDbStorage userDbStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seed(context, DatasetSpec.builder()
+                .films(0).users(users).likesPerUser(0).friendsPerUser(friendsPerUser).build());
+        userDbStorage = context.getBean(UserDbStorage.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<User> getAllUsers() {
+        return userDbStorage.getAllUsers();
+    }
+
+    @Benchmark
+    public List<User> getUsersPage() {
+        return userDbStorage.getUsersPage(users / 2, 100);
+    }
+}
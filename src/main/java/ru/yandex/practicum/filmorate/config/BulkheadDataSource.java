@@ -0,0 +1,181 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ограничитель одновременных обращений к БД (bulkhead).
+ * Каждое открытое соединение занимает одно разрешение до закрытия. Если свободного разрешения
+ * нет в течение времени ожидания, выбрасывается {@link ServiceUnavailableException} и запрос
+ * завершается с кодом 503 вместо бесконечного ожидания в очереди.
+ * <p>
+ * Потоковые выгрузки держат соединение, пока медленный клиент читает ответ, поэтому для них выделен
+ * отдельный лимит ({@link #acquireStream()}): соединения, открытые внутри выгрузки, не занимают общие
+ * разрешения, и несколько долгих выгрузок не приводят к отказам обычных запросов.
+ */
+public class BulkheadDataSource extends DelegatingDataSource {
+    private static final ThreadLocal<Boolean> STREAMING = new ThreadLocal<>();
+
+    private final Semaphore permits;
+    private final Semaphore streamPermits;
+    private final int maxConcurrent;
+    private final int maxConcurrentStreams;
+    private final long queueTimeoutNanos;
+
+    public BulkheadDataSource(DataSource dataSource, int maxConcurrent, int maxConcurrentStreams,
+                              Duration queueTimeout) {
+        super(dataSource);
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.streamPermits = new Semaphore(maxConcurrentStreams, true);
+        this.maxConcurrent = maxConcurrent;
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        this.queueTimeoutNanos = queueTimeout.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Semaphore held = acquireForConnection();
+        try {
+            return releasing(super.getConnection(), held);
+        } catch (SQLException | RuntimeException e) {
+            release(held);
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Semaphore held = acquireForConnection();
+        try {
+            return releasing(super.getConnection(username, password), held);
+        } catch (SQLException | RuntimeException e) {
+            release(held);
+            throw e;
+        }
+    }
+
+    /**
+     * Занимает разрешение на потоковую выгрузку. Вызывается в потоке запроса до начала выгрузки,
+     * чтобы при исчерпании лимита клиент получил 503, а не оборванный ответ.
+     *
+     * @return разрешение, которое освобождается при закрытии
+     * @throws ServiceUnavailableException если лимит одновременных выгрузок исчерпан
+     */
+    public StreamPermit acquireStream() {
+        acquire(streamPermits, "Превышен лимит одновременных потоковых выгрузок");
+        return new StreamPermit();
+    }
+
+    /**
+     * Возвращает количество соединений, используемых в данный момент.
+     *
+     * @return количество занятых разрешений
+     */
+    public int getActiveCount() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * Возвращает количество выполняющихся потоковых выгрузок.
+     *
+     * @return количество занятых разрешений на выгрузку
+     */
+    public int getActiveStreamCount() {
+        return maxConcurrentStreams - streamPermits.availablePermits();
+    }
+
+    private Semaphore acquireForConnection() {
+        // Внутри выгрузки соединение уже оплачено разрешением на выгрузку.
+        if (STREAMING.get() != null) {
+            return null;
+        }
+        acquire(permits, "Превышен лимит одновременных обращений к базе данных");
+        return permits;
+    }
+
+    private void acquire(Semaphore semaphore, String message) {
+        try {
+            if (!semaphore.tryAcquire(queueTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new ServiceUnavailableException(message);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Ожидание соединения с базой данных прервано");
+        }
+    }
+
+    private static void release(Semaphore held) {
+        if (held != null) {
+            held.release();
+        }
+    }
+
+    private Connection releasing(Connection connection, Semaphore held) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                        release(held);
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    /**
+     * Выгрузка, выполняемая внутри разрешения на потоковую выгрузку.
+     *
+     * @param <E> тип исключения выгрузки
+     */
+    @FunctionalInterface
+    public interface StreamTask<E extends Exception> {
+        void run() throws E;
+    }
+
+    /**
+     * Разрешение на одну потоковую выгрузку. Освобождается однократно при закрытии.
+     */
+    public final class StreamPermit implements AutoCloseable {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private StreamPermit() {
+        }
+
+        /**
+         * Выполняет выгрузку в текущем потоке. Соединения, открытые во время выгрузки,
+         * не занимают общие разрешения.
+         *
+         * @param task выгрузка
+         * @param <E>  тип исключения выгрузки
+         * @throws E исключение выгрузки
+         */
+        public <E extends Exception> void run(StreamTask<E> task) throws E {
+            STREAMING.set(Boolean.TRUE);
+            try {
+                task.run();
+            } finally {
+                STREAMING.remove();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                streamPermits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import ru.yandex.practicum.filmorate.monitoring.SqlMonitoringDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Настройка обёрток над {@link DataSource} приложения.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    /**
+     * Оборачивает источник данных учётом SQL-выражений {@link SqlMonitoringDataSource}
+     * и ограничителем одновременных обращений {@link BulkheadDataSource}.
+     * Лимиты обычных обращений и потоковых выгрузок и время ожидания задаются свойствами
+     * {@code filmorate.db.bulkhead.*}.
+     *
+     * @param environment окружение со свойствами приложения
+     * @return постобработчик бина источника данных
+     */
+    @Bean
+    public static BeanPostProcessor bulkheadDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof BulkheadDataSource)) {
+                    int maxConcurrent = environment.getProperty("filmorate.db.bulkhead.max-concurrent",
+                            Integer.class, 10);
+                    int maxConcurrentStreams = environment.getProperty(
+                            "filmorate.db.bulkhead.max-concurrent-streams", Integer.class, 2);
+                    Duration queueTimeout = environment.getProperty("filmorate.db.bulkhead.queue-timeout",
+                            Duration.class, Duration.ofMillis(500));
+                    return new BulkheadDataSource(new SqlMonitoringDataSource(dataSource), maxConcurrent,
+                            maxConcurrentStreams, queueTimeout);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.ResponseFilter;
+import org.zalando.logbook.Sink;
+import org.zalando.logbook.Strategy;
+import org.zalando.logbook.core.BodyReplacers;
+import org.zalando.logbook.core.ResponseFilters;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Настройка журналирования HTTP-запросов Logbook.
+ * Какие пути журналируются, задаётся стандартными свойствами {@code logbook.predicate.*},
+ * доля журналируемых запросов и журналирование ошибок — свойствами {@code filmorate.logbook.*}.
+ */
+@Configuration
+public class LogbookConfig {
+
+    /**
+     * Стратегия журналирования с выборкой: обмен, завершившийся статусом не ниже {@code errorStatus},
+     * записывается всегда вместе с телами, остальные — с вероятностью {@code sampleRate}.
+     * Решение принимается после получения ответа, когда известен статус, поэтому запрос и ответ
+     * записываются вместе. Заменяет стратегию из {@code logbook.strategy}; фильтры путей
+     * {@code logbook.predicate.*} по-прежнему исключают запросы из журналирования целиком.
+     *
+     * @param sampleRate      доля журналируемых успешных запросов от 0 до 1
+     * @param errorStatus     минимальный статус ответа, при котором обмен журналируется всегда
+     * @param errorBodiesOnly записывать тела только для ошибок, а для выбранных успешных обменов — без тел
+     * @return стратегия Logbook
+     */
+    @Bean
+    public Strategy strategy(@Value("${filmorate.logbook.sample-rate:1.0}") double sampleRate,
+                             @Value("${filmorate.logbook.error-status:400}") int errorStatus,
+                             @Value("${filmorate.logbook.error-bodies-only:false}") boolean errorBodiesOnly) {
+        BooleanSupplier sampled = sampler(sampleRate);
+        return new Strategy() {
+            @Override
+            public void write(Precorrelation precorrelation, HttpRequest request, Sink sink) {
+                // Запрос записывается вместе с ответом, когда станет известен статус.
+            }
+
+            @Override
+            public void write(Correlation correlation, HttpRequest request, HttpResponse response, Sink sink)
+                    throws IOException {
+                if (response.getStatus() >= errorStatus) {
+                    sink.writeBoth(correlation, request, response);
+                } else if (sampled.getAsBoolean()) {
+                    if (errorBodiesOnly) {
+                        sink.writeBoth(correlation, request.withoutBody(), response.withoutBody());
+                    } else {
+                        sink.writeBoth(correlation, request, response);
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Фильтр ответов: к стандартным заменам тел (бинарных и потоковых) добавляется замена сжатых тел,
+     * чтобы в журнал не попадали байты gzip. Тело JSON-ответа вставляется в запись журнала как есть,
+     * поэтому замена задана строковым литералом JSON.
+     *
+     * @return фильтр ответов Logbook
+     */
+    @Bean
+    public ResponseFilter responseFilter() {
+        return ResponseFilter.merge(ResponseFilters.defaultValue(),
+                ResponseFilters.replaceBody(BodyReplacers.replaceBody(
+                        response -> response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING) != null,
+                        "\"<compressed>\"")));
+    }
+
+    private static BooleanSupplier sampler(double sampleRate) {
+        if (!(sampleRate >= 0 && sampleRate <= 1)) {
+            throw new IllegalArgumentException("filmorate.logbook.sample-rate должен быть от 0 до 1: " + sampleRate);
+        }
+        if (sampleRate == 1) {
+            return () -> true;
+        }
+        if (sampleRate == 0) {
+            return () -> false;
+        }
+        return () -> ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+}
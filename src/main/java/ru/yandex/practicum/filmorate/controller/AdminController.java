@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceDataCache;
+
+/**
+ * Служебный контроллер для операций сопровождения приложения.
+ */
+@RestController
+@RequestMapping("/admin")
+@Slf4j
+@RequiredArgsConstructor
+public class AdminController {
+    private final ReferenceDataCache referenceDataCache;
+
+    /**
+     * Перезагружает кеш справочников (жанры и рейтинги MPA) из БД.
+     */
+    @PostMapping("/reference-data/refresh")
+    public void refreshReferenceData() {
+        referenceDataCache.refresh();
+        log.info("Кеш справочников перезагружен");
+    }
+}
@@ -3,8 +3,13 @@ package ru.yandex.practicum.filmorate.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.FilmLikeResult;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
 import java.util.List;
@@ -18,7 +23,10 @@ import java.util.List;
 @Slf4j
 @RequiredArgsConstructor
 public class FilmController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final FilmService filmService;
+    private final NdjsonResponses ndjsonResponses;
 
     /**
      * Добавляет новый фильм.
@@ -29,7 +37,8 @@ public class FilmController {
     @PostMapping
     public Film addFilm(@Valid @RequestBody Film film) {
         Film createdFilm = filmService.addFilm(film);
-        log.info("Фильм добавлен: {}", createdFilm);
+        log.info("Фильм добавлен с id {}", createdFilm.getId());
+        log.debug("Добавленный фильм: {}", createdFilm);
         return createdFilm;
     }
 
@@ -42,31 +51,81 @@ public class FilmController {
     @PutMapping
     public Film updateFilm(@Valid @RequestBody Film film) {
         Film updatedFilm = filmService.updateFilm(film);
-        log.info("Фильм обновлен: {}", updatedFilm);
+        log.info("Фильм с id {} обновлен", updatedFilm.getId());
+        log.debug("Обновлённый фильм: {}", updatedFilm);
         return updatedFilm;
     }
 
     /**
      * Возвращает фильм по ID.
+     * Ответ содержит ETag версии фильма; если он совпадает с {@code If-None-Match},
+     * возвращается 304 Not Modified без загрузки фильма.
      *
-     * @param id ID фильма
-     * @return найденный фильм
+     * @param id      ID фильма
+     * @param request текущий запрос
+     * @return найденный фильм или {@code null}, если фильм не изменился
      */
     @GetMapping("/{id}")
-    public Film getFilmById(@PathVariable int id) {
+    public Film getFilmById(@PathVariable int id, WebRequest request) {
         log.info("Получение фильма с id {}", id);
+        if (request.checkNotModified(filmService.getFilmETag(id))) {
+            return null;
+        }
         return filmService.getFilmById(id);
     }
 
     /**
-     * Возвращает список всех фильмов.
+     * Возвращает список фильмов.
+     * Без параметров возвращает все фильмы. С параметрами {@code after} и/или {@code limit}
+     * возвращает страницу фильмов с ID больше {@code after}; если страница заполнена полностью,
+     * курсор следующей страницы передаётся в заголовке {@value #NEXT_CURSOR_HEADER}.
      *
+     * @param after ID последнего фильма предыдущей страницы
+     * @param limit размер страницы
      * @return список фильмов
      */
     @GetMapping
-    public List<Film> getAllFilms() {
-        log.info("Получение списка всех фильмов");
-        return filmService.getAllFilms();
+    public ResponseEntity<List<Film>> getAllFilms(@RequestParam(required = false) Integer after,
+                                                  @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            log.info("Получение списка всех фильмов");
+            return ResponseEntity.ok(filmService.getAllFilms());
+        }
+        int pageSize = limit == null ? FilmService.DEFAULT_PAGE_SIZE : limit;
+        log.info("Получение страницы фильмов после id {} размером {}", after, pageSize);
+        List<Film> films = filmService.getFilmsPage(after == null ? 0 : after, pageSize);
+        if (films.size() < pageSize) {
+            return ResponseEntity.ok(films);
+        }
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, String.valueOf(films.get(films.size() - 1).getId()))
+                .body(films);
+    }
+
+    /**
+     * Ищет фильмы по словам из названия и описания.
+     *
+     * @param q     текст запроса
+     * @param limit максимальное количество фильмов (по умолчанию 10)
+     * @return найденные фильмы в порядке ранжирования
+     */
+    @GetMapping("/search")
+    public List<Film> searchFilms(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        log.info("Поиск фильмов по запросу '{}'", q);
+        return filmService.searchFilms(q, limit);
+    }
+
+    /**
+     * Выгружает все фильмы потоком в формате NDJSON (application/x-ndjson).
+     * Записи отправляются клиенту по мере чтения из БД, без формирования полного списка в памяти.
+     *
+     * @param request текущий запрос
+     * @return потоковый ответ
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamAllFilms(WebRequest request) {
+        log.info("Потоковая выгрузка всех фильмов");
+        return ndjsonResponses.stream(request, filmService::streamAllFilms);
     }
 
     /**
@@ -81,6 +140,20 @@ public class FilmController {
         log.info("Пользователь {} поставил лайк фильму {}", userId, id);
     }
 
+    /**
+     * Добавляет пакет лайков одним запросом.
+     * Повторные и уже существующие лайки пропускаются, для каждого элемента возвращается статус обработки.
+     *
+     * @param likes список пар фильм-пользователь
+     * @return результаты обработки в порядке запроса
+     */
+    @PostMapping("/likes/batch")
+    public List<FilmLikeResult> addLikes(@RequestBody List<FilmLike> likes) {
+        List<FilmLikeResult> results = filmService.addLikes(likes);
+        log.info("Обработан пакет лайков размером {}", likes.size());
+        return results;
+    }
+
     /**
      * Удаляет лайк у фильма от пользователя.
      *
@@ -94,14 +167,19 @@ public class FilmController {
     }
 
     /**
-     * Возвращает список самых популярных фильмов по количеству лайков.
+     * Возвращает список самых популярных фильмов по количеству лайков,
+     * при необходимости — только указанного жанра и (или) года выпуска.
      *
-     * @param count максимальное количество фильмов (по умолчанию 10)
+     * @param count   максимальное количество фильмов (по умолчанию 10)
+     * @param genreId ID жанра
+     * @param year    год выпуска
      * @return список популярных фильмов
      */
     @GetMapping("/popular")
-    public List<Film> getMostPopularFilms(@RequestParam(defaultValue = "10") int count) {
-        log.info("Получение топ-{} популярных фильмов", count);
-        return filmService.getMostPopularFilms(count);
+    public List<Film> getMostPopularFilms(@RequestParam(defaultValue = "10") int count,
+                                          @RequestParam(required = false) Integer genreId,
+                                          @RequestParam(required = false) Integer year) {
+        log.info("Получение топ-{} популярных фильмов, жанр {}, год {}", count, genreId, year);
+        return filmService.getMostPopularFilms(count, genreId, year);
     }
 }
@@ -1,15 +1,15 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import ru.yandex.practicum.filmorate.model.Genre;
+import org.springframework.web.context.request.ServletWebRequest;
 import ru.yandex.practicum.filmorate.service.GenreService;
 
-import java.util.List;
-
 /**
  * Контроллер для получения жанров фильмов.
  */
@@ -19,25 +19,33 @@ import java.util.List;
 public class GenreController {
 
     private final GenreService genreService;
+    private final ReferenceDataResponses responses;
 
     /**
      * Возвращает список всех жанров.
+     * Тело ответа берётся из готовых JSON и gzip-вариантов, ответ содержит ETag версии справочника;
+     * если он совпадает с {@code If-None-Match}, возвращается 304 Not Modified.
      *
-     * @return список жанров
+     * @param request текущий запрос
+     * @return список жанров или {@code null}, если справочник не изменился
      */
-    @GetMapping
-    public List<Genre> getAllGenres() {
-        return genreService.getAllGenres();
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getAllGenres(ServletWebRequest request) {
+        return responses.respond(request, genreService.getETag(), "genres", genreService::getAllGenres);
     }
 
     /**
      * Возвращает жанр по ID.
      *
-     * @param id ID жанра
-     * @return найденный жанр
+     * @param id      ID жанра
+     * @param request текущий запрос
+     * @return найденный жанр или {@code null}, если справочник не изменился
      */
-    @GetMapping("/{id}")
-    public Genre getGenreById(@PathVariable int id) {
-        return genreService.getGenreById(id);
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getGenreById(@PathVariable int id, ServletWebRequest request) {
+        // Несуществующий ID даёт 404 и при совпадающем If-None-Match. Тело читается после ETag, чтобы
+        // при перезагрузке справочников тело прежней версии не закешировалось под ETag новой.
+        genreService.getGenreById(id);
+        return responses.respond(request, genreService.getETag(), "genres/" + id, () -> genreService.getGenreById(id));
     }
 }
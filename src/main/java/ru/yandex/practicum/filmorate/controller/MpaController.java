@@ -1,14 +1,15 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import ru.yandex.practicum.filmorate.model.Mpa;
+import org.springframework.web.context.request.ServletWebRequest;
 import ru.yandex.practicum.filmorate.service.MpaService;
 
-import java.util.List;
 /**
  * Контроллер для получения рейтингов MPA (возрастных ограничений).
  */
@@ -18,23 +19,32 @@ import java.util.List;
 public class MpaController {
 
     private final MpaService mpaService;
+    private final ReferenceDataResponses responses;
     /**
      * Возвращает список всех рейтингов MPA.
+     * Тело ответа берётся из готовых JSON и gzip-вариантов, ответ содержит ETag версии справочника;
+     * если он совпадает с {@code If-None-Match}, возвращается 304 Not Modified.
      *
-     * @return список рейтингов
+     * @param request текущий запрос
+     * @return список рейтингов или {@code null}, если справочник не изменился
      */
-    @GetMapping
-    public List<Mpa> getAllMpa() {
-        return mpaService.getAllMpa();
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getAllMpa(ServletWebRequest request) {
+        return responses.respond(request, mpaService.getETag(), "mpa", mpaService::getAllMpa);
     }
+
     /**
      * Возвращает рейтинг MPA по ID.
      *
-     * @param id ID рейтинга
-     * @return найденный рейтинг MPA
+     * @param id      ID рейтинга
+     * @param request текущий запрос
+     * @return найденный рейтинг MPA или {@code null}, если справочник не изменился
      */
-    @GetMapping("/{id}")
-    public Mpa getMpaById(@PathVariable int id) {
-        return mpaService.getMpaById(id);
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getMpaById(@PathVariable int id, ServletWebRequest request) {
+        // Несуществующий ID даёт 404 и при совпадающем If-None-Match. Тело читается после ETag, чтобы
+        // при перезагрузке справочников тело прежней версии не закешировалось под ETag новой.
+        mpaService.getMpaById(id);
+        return responses.respond(request, mpaService.getETag(), "mpa/" + id, () -> mpaService.getMpaById(id));
     }
 }
@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.config.BulkheadDataSource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+/**
+ * Потоковая выдача сущностей в формате NDJSON (один JSON-объект на строку).
+ * Каждый объект сериализуется и записывается в ответ сразу после чтения из хранилища.
+ * <p>
+ * Выгрузка держит соединение с БД, пока клиент читает ответ, поэтому она выполняется под отдельным
+ * лимитом потоковых выгрузок {@link BulkheadDataSource#acquireStream()}, а не под общими разрешениями.
+ * Разрешение занимается в потоке запроса и освобождается по завершении асинхронной обработки, даже если
+ * выгрузка так и не началась: задача отклонена исполнителем, истёк тайм-аут или клиент отключился.
+ */
+@Component
+class NdjsonResponses {
+    private final ObjectMapper objectMapper;
+    private final BulkheadDataSource bulkhead;
+
+    NdjsonResponses(ObjectMapper objectMapper, ObjectProvider<DataSource> dataSource) {
+        this.objectMapper = objectMapper;
+        this.bulkhead = dataSource.getIfAvailable() instanceof BulkheadDataSource limited ? limited : null;
+    }
+
+    /**
+     * Создаёт потоковый ответ, в который записываются все объекты, переданные источником.
+     *
+     * @param request текущий запрос
+     * @param source  источник, передающий объекты обработчику по одному
+     * @param <T>     тип объектов
+     * @return ответ с типом содержимого application/x-ndjson
+     * @throws ru.yandex.practicum.filmorate.exception.ServiceUnavailableException если лимит выгрузок исчерпан
+     */
+    <T> ResponseEntity<StreamingResponseBody> stream(WebRequest request, Consumer<Consumer<T>> source) {
+        ObjectWriter writer = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody write = out -> {
+            boolean[] first = {true};
+            try {
+                source.accept(item -> {
+                    try {
+                        writer.writeValue(out, item);
+                        out.write('\n');
+                        // Первую строку отправляем сразу, дальше полагаемся на буфер контейнера.
+                        if (first[0]) {
+                            out.flush();
+                            first[0] = false;
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        if (bulkhead == null) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(write);
+        }
+        BulkheadDataSource.StreamPermit permit = bulkhead.acquireStream();
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(permit, new CallableProcessingInterceptor() {
+            @Override
+            public <V> void afterCompletion(NativeWebRequest webRequest, Callable<V> task) {
+                permit.close();
+            }
+        });
+        StreamingResponseBody body = out -> {
+            try (permit) {
+                permit.run(() -> write.writeTo(out));
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+}
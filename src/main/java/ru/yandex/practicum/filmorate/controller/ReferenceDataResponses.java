@@ -0,0 +1,129 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Готовые тела ответов для справочников жанров и рейтингов MPA.
+ * JSON и его gzip-вариант вычисляются один раз для каждой версии справочников и затем отдаются
+ * из массива байтов без сериализации и сжатия. При смене версии (перезагрузке справочников)
+ * все тела сбрасываются и строятся заново при первом запросе.
+ * <p>
+ * Вариант выбирается по заголовку {@code Accept-Encoding}, ответ содержит {@code Vary: Accept-Encoding},
+ * а ETag gzip-варианта отличается суффиксом, поэтому кеши не смешивают варианты.
+ */
+@Component
+class ReferenceDataResponses {
+    static final String GZIP = "gzip";
+
+    private final ObjectMapper objectMapper;
+    private volatile Generation generation = new Generation("", new ConcurrentHashMap<>());
+
+    ReferenceDataResponses(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Формирует ответ с готовым телом или 304 Not Modified, если ETag клиента совпадает с текущим.
+     *
+     * @param request текущий запрос
+     * @param eTag    ETag текущей версии справочников
+     * @param key     ключ ресурса, уникальный в пределах версии
+     * @param body    источник объекта для сериализации, вызывается только при отсутствии готового тела
+     * @return ответ с телом или {@code null}, если ресурс не изменился
+     */
+    ResponseEntity<byte[]> respond(ServletWebRequest request, String eTag, String key, Supplier<?> body) {
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (request.checkNotModified(gzip ? eTag + "-" + GZIP : eTag)) {
+            return null;
+        }
+        SerializedBody serialized = bodies(eTag).computeIfAbsent(key, k -> serialize(body.get()));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, GZIP).body(serialized.gzip());
+        }
+        return response.body(serialized.json());
+    }
+
+    private Map<String, SerializedBody> bodies(String eTag) {
+        Generation current = generation;
+        if (!current.eTag().equals(eTag)) {
+            current = new Generation(eTag, new ConcurrentHashMap<>());
+            generation = current;
+        }
+        return current.bodies();
+    }
+
+    private SerializedBody serialize(Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length);
+            try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(json);
+            }
+            return new SerializedBody(json, compressed.toByteArray());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать справочник", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Проверяет, принимает ли клиент gzip: кодировка {@code gzip} (или, если она не указана, {@code *})
+     * с ненулевым весом.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        boolean anyAccepted = false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase(GZIP)) {
+                return !hasZeroWeight(parts);
+            }
+            if (name.equals("*")) {
+                anyAccepted = !hasZeroWeight(parts);
+            }
+        }
+        return anyAccepted;
+    }
+
+    private static boolean hasZeroWeight(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2)) == 0;
+                } catch (NumberFormatException e) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private record Generation(String eTag, Map<String, SerializedBody> bodies) {
+    }
+
+    private record SerializedBody(byte[] json, byte[] gzip) {
+    }
+}
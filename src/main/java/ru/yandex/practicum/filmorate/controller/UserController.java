@@ -3,8 +3,13 @@ package ru.yandex.practicum.filmorate.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.util.List;
@@ -17,7 +22,11 @@ import java.util.List;
 @Slf4j
 @RequiredArgsConstructor
 public class UserController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final UserService userService;
+    private final FilmService filmService;
+    private final NdjsonResponses ndjsonResponses;
     /**
      * Создаёт нового пользователя.
      *
@@ -27,7 +36,8 @@ public class UserController {
     @PostMapping
     public User createUser(@Valid @RequestBody User user) {
         User createdUser = userService.createUser(user);
-        log.info("Пользователь создан: {}", createdUser);
+        log.info("Пользователь создан с id {}", createdUser.getId());
+        log.debug("Созданный пользователь: {}", createdUser);
         return createdUser;
     }
     /**
@@ -39,30 +49,67 @@ public class UserController {
     @PutMapping
     public User updateUser(@Valid @RequestBody User user) {
         User updatedUser = userService.updateUser(user);
-        log.info("Пользователь обновлен: {}", updatedUser);
+        log.info("Пользователь с id {} обновлен", updatedUser.getId());
+        log.debug("Обновлённый пользователь: {}", updatedUser);
         return updatedUser;
     }
     /**
      * Возвращает пользователя по ID.
+     * Ответ содержит ETag версии пользователя; если он совпадает с {@code If-None-Match},
+     * возвращается 304 Not Modified без загрузки пользователя.
      *
-     * @param id ID пользователя
-     * @return найденный пользователь
+     * @param id      ID пользователя
+     * @param request текущий запрос
+     * @return найденный пользователь или {@code null}, если пользователь не изменился
      */
     @GetMapping("/{id}")
-    public User getUserById(@PathVariable int id) {
+    public User getUserById(@PathVariable int id, WebRequest request) {
         log.info("Получение пользователя с id {}", id);
+        if (request.checkNotModified(userService.getUserETag(id))) {
+            return null;
+        }
         return userService.getUserById(id);
     }
     /**
-     * Возвращает список всех пользователей.
+     * Возвращает список пользователей.
+     * Без параметров возвращает всех пользователей. С параметрами {@code after} и/или {@code limit}
+     * возвращает страницу пользователей с ID больше {@code after}; если страница заполнена полностью,
+     * курсор следующей страницы передаётся в заголовке {@value #NEXT_CURSOR_HEADER}.
      *
+     * @param after ID последнего пользователя предыдущей страницы
+     * @param limit размер страницы
      * @return список пользователей
      */
     @GetMapping
-    public List<User> getAllUsers() {
-        log.info("Получение списка всех пользователей");
-        return userService.getAllUsers();
+    public ResponseEntity<List<User>> getAllUsers(@RequestParam(required = false) Integer after,
+                                                  @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            log.info("Получение списка всех пользователей");
+            return ResponseEntity.ok(userService.getAllUsers());
+        }
+        int pageSize = limit == null ? UserService.DEFAULT_PAGE_SIZE : limit;
+        log.info("Получение страницы пользователей после id {} размером {}", after, pageSize);
+        List<User> users = userService.getUsersPage(after == null ? 0 : after, pageSize);
+        if (users.size() < pageSize) {
+            return ResponseEntity.ok(users);
+        }
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, String.valueOf(users.get(users.size() - 1).getId()))
+                .body(users);
+    }
+    /**
+     * Выгружает всех пользователей потоком в формате NDJSON (application/x-ndjson).
+     * Записи отправляются клиенту по мере чтения из БД, без формирования полного списка в памяти.
+     *
+     * @param request текущий запрос
+     * @return потоковый ответ
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamAllUsers(WebRequest request) {
+        log.info("Потоковая выгрузка всех пользователей");
+        return ndjsonResponses.stream(request, userService::streamAllUsers);
     }
+
     /**
      * Добавляет пользователя в друзья другому пользователю.
      *
@@ -108,4 +155,29 @@ public class UserController {
         log.info("Получение общих друзей пользователей {} и {}", id, otherId);
         return userService.getCommonFriends(id, otherId);
     }
+    /**
+     * Возвращает рекомендуемых друзей пользователя по количеству общих друзей.
+     *
+     * @param id    ID пользователя
+     * @param limit максимальное количество рекомендаций
+     * @return список рекомендуемых пользователей
+     */
+    @GetMapping("/{id}/friends/suggestions")
+    public List<User> getFriendSuggestions(@PathVariable int id,
+                                           @RequestParam(defaultValue = "10") int limit) {
+        log.info("Получение рекомендаций друзей для пользователя {}", id);
+        return userService.getFriendSuggestions(id, limit);
+    }
+    /**
+     * Возвращает фильмы, рекомендуемые пользователю по лайкам пользователей со схожими вкусами.
+     *
+     * @param id    ID пользователя
+     * @param limit максимальное количество фильмов
+     * @return список рекомендуемых фильмов
+     */
+    @GetMapping("/{id}/recommendations")
+    public List<Film> getRecommendations(@PathVariable int id, @RequestParam(defaultValue = "10") int limit) {
+        log.info("Получение рекомендаций фильмов для пользователя {}", id);
+        return filmService.getRecommendations(id, limit);
+    }
 }
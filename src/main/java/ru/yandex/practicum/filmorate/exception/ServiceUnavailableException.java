@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.exception;
+
+/**
+ * Исключение, выбрасываемое при временной перегрузке приложения,
+ * например когда исчерпан лимит одновременных обращений к БД.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+    /**
+     * Создаёт исключение с сообщением об ошибке.
+     *
+     * @param message описание ошибки
+     */
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
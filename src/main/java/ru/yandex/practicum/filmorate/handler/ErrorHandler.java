@@ -2,10 +2,12 @@ package ru.yandex.practicum.filmorate.handler;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import ru.yandex.practicum.filmorate.exception.ResourceNotFoundException;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 
 import java.util.Collections;
@@ -51,6 +53,29 @@ public class ErrorHandler {
     public ResponseEntity<Map<String, String>> handleResourceNotFoundException(ResourceNotFoundException ex) {
         return new ResponseEntity<>(Collections.singletonMap(ERROR_KEY, ex.getMessage()), HttpStatus.NOT_FOUND);
     }
+    /**
+     * Обрабатывает временную перегрузку, например исчерпание лимита обращений к БД.
+     *
+     * @param ex исключение {@link ServiceUnavailableException}
+     * @return ответ с сообщением об ошибке и статусом 503
+     */
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<Map<String, String>> handleServiceUnavailableException(ServiceUnavailableException ex) {
+        return new ResponseEntity<>(Collections.singletonMap(ERROR_KEY, ex.getMessage()), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+    /**
+     * Обрабатывает ошибки открытия транзакции. Если причина — перегрузка БД, возвращает 503.
+     *
+     * @param ex исключение {@link CannotCreateTransactionException}
+     * @return ответ с сообщением об ошибке и статусом 503 или 500
+     */
+    @ExceptionHandler(CannotCreateTransactionException.class)
+    public ResponseEntity<Map<String, String>> handleCannotCreateTransactionException(CannotCreateTransactionException ex) {
+        if (ex.getCause() instanceof ServiceUnavailableException cause) {
+            return handleServiceUnavailableException(cause);
+        }
+        return handleAllUnhandledExceptions(ex);
+    }
     /**
      * Обрабатывает все прочие необработанные исключения.
      *
@@ -1,10 +1,12 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.*;
 import lombok.Data;
 
 import java.time.LocalDate;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 /**
  * Модель фильма.
@@ -29,11 +31,42 @@ public class Film {
     private int duration;
     // Идентификаторы пользователей, поставивших лайк.
     private Set<Integer> likes = new HashSet<>();
+    // Количество лайков, хранится в денормализованном счётчике films.likes_count.
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private int likesCount;
 
     private Mpa mpa;
 
 
     private Set<Genre> genres = new HashSet<>();
 
-
+    /**
+     * Возвращает независимую копию фильма: множества лайков и жанров, рейтинг и жанры копируются.
+     * Нужна, когда фильм из общего кеша изменяется перед выдачей.
+     *
+     * @return копия фильма
+     */
+    public Film copy() {
+        Film copy = new Film();
+        copy.setId(id);
+        copy.setName(name);
+        copy.setDescription(description);
+        copy.setReleaseDate(releaseDate);
+        copy.setDuration(duration);
+        copy.setLikes(likes == null ? null : new HashSet<>(likes));
+        copy.setLikesCount(likesCount);
+        if (mpa != null) {
+            copy.setMpa(mpa.copy());
+        }
+        if (genres == null) {
+            copy.setGenres(null);
+        } else {
+            Set<Genre> genresCopy = new LinkedHashSet<>();
+            for (Genre genre : genres) {
+                genresCopy.add(genre.copy());
+            }
+            copy.setGenres(genresCopy);
+        }
+        return copy;
+    }
 }
@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+/**
+ * Лайк фильма от пользователя: пара ID фильма и ID пользователя.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FilmLike {
+    private int filmId;
+    private int userId;
+}
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+/**
+ * Результат обработки одного лайка из пакетного запроса.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FilmLikeResult {
+    private int filmId;
+    private int userId;
+    private Status status;
+
+    /**
+     * Статус обработки лайка.
+     */
+    public enum Status {
+        // Лайк добавлен.
+        CREATED,
+        // Лайк уже существовал или повторяется в запросе.
+        DUPLICATE,
+        // Фильм или пользователь не найден.
+        NOT_FOUND
+    }
+}
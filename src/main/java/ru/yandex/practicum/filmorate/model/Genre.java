@@ -11,4 +11,16 @@ public class Genre {
     private int id;
     @NotBlank
     private String name;
-}
\ No newline at end of file
+
+    /**
+     * Возвращает независимую копию жанра.
+     *
+     * @return копия жанра
+     */
+    public Genre copy() {
+        Genre copy = new Genre();
+        copy.setId(id);
+        copy.setName(name);
+        return copy;
+    }
+}
@@ -11,4 +11,16 @@ public class Mpa {
     private int id;
     @NotBlank
     private String name;
-}
\ No newline at end of file
+
+    /**
+     * Возвращает независимую копию рейтинга.
+     *
+     * @return копия рейтинга
+     */
+    public Mpa copy() {
+        Mpa copy = new Mpa();
+        copy.setId(id);
+        copy.setName(name);
+        return copy;
+    }
+}
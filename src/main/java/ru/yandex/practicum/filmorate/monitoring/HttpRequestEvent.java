@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Событие Java Flight Recorder об обработке HTTP-запроса.
+ * События {@link SqlStatementEvent} этого запроса записываются в том же потоке внутри его интервала.
+ */
+@Name(HttpRequestEvent.NAME)
+@Label("HTTP Request")
+@Category({"Filmorate", "HTTP"})
+@Description("Обработка HTTP-запроса контроллером")
+@StackTrace(false)
+public class HttpRequestEvent extends Event {
+    public static final String NAME = "ru.yandex.practicum.filmorate.HttpRequest";
+
+    @Label("Method")
+    String method;
+
+    @Label("URI Pattern")
+    String uri;
+
+    @Label("Path")
+    String path;
+
+    @Label("Status")
+    int status;
+
+    @Label("SQL Statements")
+    int sqlStatements;
+
+    @Label("SQL Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long sqlTime;
+}
@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Записывает {@link HttpRequestEvent} для каждого HTTP-запроса, если событие включено в записи JFR.
+ */
+@Component
+public class HttpRequestEventFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        HttpRequestEvent event = new HttpRequestEvent();
+        if (!event.isEnabled()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        event.begin();
+        try (SqlStatistics statistics = SqlStatistics.start()) {
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                    event.method = request.getMethod();
+                    event.uri = pattern == null ? "UNKNOWN" : pattern.toString();
+                    event.path = request.getRequestURI();
+                    event.status = response.getStatus();
+                    event.sqlStatements = statistics.getStatementCount();
+                    event.sqlTime = statistics.getElapsedNanos();
+                    event.commit();
+                }
+            }
+        }
+    }
+}
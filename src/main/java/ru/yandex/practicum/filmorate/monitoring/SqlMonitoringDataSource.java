@@ -0,0 +1,126 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Обёртка над {@link DataSource}, измеряющая выполнение SQL-выражений.
+ * Каждый вызов {@code execute*} выражения учитывается в {@link SqlStatistics} текущего потока
+ * вместе с длительностью; пакет JDBC считается одним выражением.
+ * <p>
+ * Если в записи JFR включено событие {@link SqlStatementEvent}, по каждому выражению записывается событие
+ * с текстом и количеством строк. Для запросов на чтение событие завершается при закрытии результата,
+ * а строки считаются по вызовам {@link ResultSet#next()}.
+ */
+public class SqlMonitoringDataSource extends DelegatingDataSource {
+
+    public SqlMonitoringDataSource(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return monitored(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return monitored(super.getConnection(username, password));
+    }
+
+    private Connection monitored(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    return switch (method.getName()) {
+                        case "prepareCall" -> monitored((Statement) result, CallableStatement.class, (String) args[0]);
+                        case "prepareStatement" ->
+                                monitored((Statement) result, PreparedStatement.class, (String) args[0]);
+                        case "createStatement" -> monitored((Statement) result, Statement.class, null);
+                        default -> result;
+                    };
+                });
+    }
+
+    private Statement monitored(Statement statement, Class<? extends Statement> type, String preparedSql) {
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (!method.getName().startsWith("execute")) {
+                        return invoke(statement, method, args);
+                    }
+                    String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+                    SqlStatementEvent event = SqlStatementEvent.start(sql, method.getName());
+                    long started = System.nanoTime();
+                    try {
+                        Object result = invoke(statement, method, args);
+                        if (event != null) {
+                            if (result instanceof ResultSet resultSet) {
+                                return counting(resultSet, event);
+                            }
+                            event.finish(rows(statement, result));
+                        }
+                        return result;
+                    } finally {
+                        SqlStatistics.record(System.nanoTime() - started);
+                    }
+                });
+    }
+
+    private ResultSet counting(ResultSet resultSet, SqlStatementEvent event) {
+        long[] rows = new long[1];
+        boolean[] finished = new boolean[1];
+        return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(resultSet, method, args);
+                    if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                        rows[0]++;
+                    } else if ("close".equals(method.getName()) && !finished[0]) {
+                        finished[0] = true;
+                        event.finish(rows[0]);
+                    }
+                    return result;
+                });
+    }
+
+    private static long rows(Statement statement, Object result) throws SQLException {
+        if (result instanceof Number count) {
+            return count.longValue();
+        }
+        if (result instanceof int[] counts) {
+            long total = 0;
+            for (int count : counts) {
+                total += Math.max(count, 0);
+            }
+            return total;
+        }
+        if (result instanceof long[] counts) {
+            long total = 0;
+            for (long count : counts) {
+                total += Math.max(count, 0);
+            }
+            return total;
+        }
+        if (Boolean.FALSE.equals(result)) {
+            return statement.getUpdateCount();
+        }
+        return -1;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
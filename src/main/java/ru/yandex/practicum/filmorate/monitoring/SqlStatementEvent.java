@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие Java Flight Recorder о выполнении SQL-выражения.
+ * Длительность запроса на чтение включает чтение строк результата до его закрытия,
+ * стек вызовов указывает на метод хранилища, выполнившего выражение.
+ */
+@Name(SqlStatementEvent.NAME)
+@Label("SQL Statement")
+@Category({"Filmorate", "Database"})
+@Description("Выполнение SQL-выражения через JDBC")
+public class SqlStatementEvent extends Event {
+    public static final String NAME = "ru.yandex.practicum.filmorate.SqlStatement";
+
+    @Label("SQL Id")
+    @Description("Хеш текста выражения для группировки одинаковых выражений")
+    String sqlId;
+
+    @Label("SQL")
+    String sql;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Rows")
+    @Description("Количество прочитанных или изменённых строк, -1 если неизвестно")
+    long rows;
+
+    /**
+     * Создаёт и начинает событие, если оно включено в текущей записи.
+     *
+     * @param sql       текст выражения
+     * @param operation вызванный метод JDBC
+     * @return начатое событие или {@code null}, если событие не записывается
+     */
+    static SqlStatementEvent start(String sql, String operation) {
+        SqlStatementEvent event = new SqlStatementEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.sql = sql;
+        event.sqlId = sql == null ? null : Integer.toHexString(sql.hashCode());
+        event.operation = operation;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Завершает событие и записывает его, если длительность превысила порог записи.
+     *
+     * @param rows количество строк
+     */
+    void finish(long rows) {
+        end();
+        if (shouldCommit()) {
+            this.rows = rows;
+            commit();
+        }
+    }
+}
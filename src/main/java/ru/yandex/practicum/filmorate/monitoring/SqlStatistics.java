@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+/**
+ * Счётчик SQL-выражений и суммарного времени их выполнения в пределах области видимости текущего потока,
+ * как правило — одного HTTP-запроса. Область открывается {@link #start()} и закрывается {@link #close()};
+ * выражения, выполненные вне области, не учитываются.
+ */
+public final class SqlStatistics implements AutoCloseable {
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private final SqlStatistics previous;
+    private int statementCount;
+    private long elapsedNanos;
+
+    private SqlStatistics(SqlStatistics previous) {
+        this.previous = previous;
+    }
+
+    /**
+     * Открывает область подсчёта в текущем потоке. Вложенные области учитываются и во внешней области.
+     *
+     * @return открытая область
+     */
+    public static SqlStatistics start() {
+        SqlStatistics statistics = new SqlStatistics(CURRENT.get());
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * Возвращает открытую область текущего потока.
+     *
+     * @return область или {@code null}, если она не открыта
+     */
+    public static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Учитывает выполненное выражение во всех открытых областях текущего потока.
+     *
+     * @param nanos длительность выполнения в наносекундах
+     */
+    static void record(long nanos) {
+        for (SqlStatistics statistics = CURRENT.get(); statistics != null; statistics = statistics.previous) {
+            statistics.statementCount++;
+            statistics.elapsedNanos += nanos;
+        }
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Возвращает суммарное время выполнения выражений в миллисекундах.
+     *
+     * @return время в миллисекундах
+     */
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    /**
+     * Закрывает область и восстанавливает внешнюю.
+     */
+    @Override
+    public void close() {
+        if (CURRENT.get() == this) {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
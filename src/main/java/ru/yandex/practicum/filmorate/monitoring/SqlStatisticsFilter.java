@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Подсчитывает SQL-выражения, выполненные при обработке HTTP-запроса.
+ * Количество и суммарное время выражений возвращаются в заголовках {@value #SQL_COUNT_HEADER}
+ * и {@value #SQL_TIME_HEADER}, записываются в метрики по шаблону URI, а при превышении бюджета
+ * {@code filmorate.sql.statement-budget} в лог пишется предупреждение о возможной проблеме N+1.
+ */
+@Component
+@Slf4j
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+    public static final String SQL_COUNT_HEADER = "X-Sql-Count";
+    public static final String SQL_TIME_HEADER = "X-Sql-Time-Ms";
+
+    private final MeterRegistry meterRegistry;
+    private final int statementBudget;
+
+    /**
+     * Без зарегистрированного {@link MeterRegistry} (например, в срезах {@code @WebMvcTest})
+     * метрики пишутся в глобальный реестр Micrometer.
+     */
+    public SqlStatisticsFilter(ObjectProvider<MeterRegistry> meterRegistry,
+                               @Value("${filmorate.sql.statement-budget:10}") int statementBudget) {
+        this.meterRegistry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+        this.statementBudget = statementBudget;
+    }
+
+    /**
+     * Записывает текущие значения счётчиков в заголовки ответа, если он ещё не отправлен.
+     *
+     * @param response   HTTP-ответ
+     * @param statistics счётчики запроса
+     */
+    static void writeHeaders(HttpServletResponse response, SqlStatistics statistics) {
+        if (!response.isCommitted()) {
+            response.setHeader(SQL_COUNT_HEADER, String.valueOf(statistics.getStatementCount()));
+            response.setHeader(SQL_TIME_HEADER, String.valueOf(statistics.getElapsedMillis()));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try (SqlStatistics statistics = SqlStatistics.start()) {
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                writeHeaders(response, statistics);
+                record(request, statistics);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlStatistics statistics) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        DistributionSummary.builder("http.server.sql.statements")
+                .description("Количество SQL-выражений на HTTP-запрос")
+                .tags("method", request.getMethod(), "uri", uri)
+                .register(meterRegistry)
+                .record(statistics.getStatementCount());
+        Timer.builder("http.server.sql.time")
+                .description("Суммарное время SQL-выражений на HTTP-запрос")
+                .tags("method", request.getMethod(), "uri", uri)
+                .register(meterRegistry)
+                .record(statistics.getElapsedNanos(), TimeUnit.NANOSECONDS);
+        if (statistics.getStatementCount() > statementBudget) {
+            log.warn("Запрос {} {} выполнил {} SQL-выражений за {} мс при бюджете {}: возможна проблема N+1",
+                    request.getMethod(), request.getRequestURI(), statistics.getStatementCount(),
+                    statistics.getElapsedMillis(), statementBudget);
+        }
+    }
+}
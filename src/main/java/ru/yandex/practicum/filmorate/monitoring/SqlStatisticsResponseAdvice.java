@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Записывает заголовки {@link SqlStatisticsFilter} перед сериализацией тела ответа,
+ * пока ответ ещё не отправлен клиенту.
+ */
+@ControllerAdvice
+public class SqlStatisticsResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        SqlStatistics statistics = SqlStatistics.current();
+        if (statistics != null && response instanceof ServletServerHttpResponse servletResponse) {
+            SqlStatisticsFilter.writeHeaders(servletResponse.getServletResponse(), statistics);
+        }
+        return body;
+    }
+}
@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Замеряет время выполнения методов хранилищ и записывает его в таймер {@value #METRIC_NAME}
+ * с тегами {@code storage}, {@code method} и {@code exception}.
+ * <p>
+ * Таймер успешных вызовов создаётся один раз на метод и кешируется, поэтому на каждый вызов приходятся
+ * только поиск в карте, два вызова {@link System#nanoTime()} и запись в гистограмму.
+ */
+public class StorageMetricsInterceptor implements MethodInterceptor {
+    public static final String METRIC_NAME = "filmorate.storage";
+
+    private final Supplier<MeterRegistry> meterRegistry;
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * @param meterRegistry поставщик реестра; вызывается при первом обращении к методу,
+     *                      а не при создании прокси
+     */
+    public StorageMetricsInterceptor(Supplier<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            Object result = invocation.proceed();
+            Timer timer = timers.get(invocation.getMethod());
+            if (timer == null) {
+                timer = timers.computeIfAbsent(invocation.getMethod(), method -> timer(invocation, "none"));
+            }
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            timer(invocation, e.getClass().getSimpleName()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private Timer timer(MethodInvocation invocation, String exception) {
+        Class<?> targetClass = invocation.getThis() == null
+                ? invocation.getMethod().getDeclaringClass()
+                : AopUtils.getTargetClass(invocation.getThis());
+        return Timer.builder(METRIC_NAME)
+                .description("Время выполнения методов хранилищ")
+                .tags("storage", targetClass.getSimpleName(),
+                        "method", invocation.getMethod().getName(),
+                        "exception", exception)
+                .register(meterRegistry.get());
+    }
+}
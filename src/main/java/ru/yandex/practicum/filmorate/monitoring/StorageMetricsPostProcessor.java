@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.aop.ClassFilter;
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.util.function.SingletonSupplier;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Оборачивает публичные методы бинов {@code *DbStorage} в {@link StorageMetricsInterceptor}.
+ * Хранилища внедряются в том числе по классу, поэтому прокси создаются через наследование (CGLIB).
+ */
+@Component
+public class StorageMetricsPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+
+    public StorageMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        StorageMetricsInterceptor interceptor = new StorageMetricsInterceptor(
+                SingletonSupplier.of(() -> meterRegistry.getIfAvailable(() -> Metrics.globalRegistry)));
+        this.advisor = new DefaultPointcutAdvisor(new StorageMethodPointcut(), interceptor);
+        setProxyTargetClass(true);
+    }
+
+    private static class StorageMethodPointcut extends StaticMethodMatcherPointcut {
+
+        @Override
+        public ClassFilter getClassFilter() {
+            return type -> type.getSimpleName().endsWith("DbStorage");
+        }
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass) {
+            return Modifier.isPublic(method.getModifiers()) && method.getDeclaringClass() != Object.class;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.user.UsersDeletedEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Версии фильмов, пользователей и справочников для формирования ETag.
+ * Версия сущности увеличивается после каждого изменения, которое влияет на её представление в API,
+ * поэтому по ETag можно ответить 304 Not Modified, не загружая сущность из хранилища.
+ * <p>
+ * Версии хранятся только для сущностей, изменённых после запуска приложения, остальные имеют версию 0.
+ * В ETag входит время запуска, поэтому после перезапуска ранее выданные ETag не совпадают с новыми.
+ */
+@Component
+public class EntityVersions {
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final Map<Integer, Long> filmVersions = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> userVersions = new ConcurrentHashMap<>();
+    // Поколение всех фильмов: увеличивается, когда меняется представление сразу всех фильмов.
+    private final AtomicLong filmsGeneration = new AtomicLong();
+    private final ReferenceDataCache referenceDataCache;
+
+    public EntityVersions(ReferenceDataCache referenceDataCache) {
+        this.referenceDataCache = referenceDataCache;
+    }
+
+    /**
+     * Отмечает изменение фильма. Вызывается после записи изменения в хранилище.
+     *
+     * @param filmId ID фильма
+     */
+    public void filmChanged(int filmId) {
+        filmVersions.merge(filmId, 1L, Long::sum);
+    }
+
+    /**
+     * Отмечает изменение пользователя. Вызывается после записи изменения в хранилище.
+     *
+     * @param userId ID пользователя
+     */
+    public void userChanged(int userId) {
+        userVersions.merge(userId, 1L, Long::sum);
+    }
+
+    /**
+     * Возвращает ETag текущей версии фильма. Представление фильма содержит названия рейтинга MPA и жанров,
+     * поэтому в ETag входит и версия справочников.
+     *
+     * @param filmId ID фильма
+     * @return значение ETag без кавычек
+     */
+    public String filmETag(int filmId) {
+        return eTag("f", filmsGeneration.get() + "." + referenceDataCache.getVersion() + "."
+                + filmVersions.getOrDefault(filmId, 0L));
+    }
+
+    /**
+     * Возвращает ETag текущей версии пользователя.
+     *
+     * @param userId ID пользователя
+     * @return значение ETag без кавычек
+     */
+    public String userETag(int userId) {
+        return eTag("u", userVersions.getOrDefault(userId, 0L));
+    }
+
+    /**
+     * Возвращает ETag текущей версии справочников жанров и рейтингов MPA.
+     *
+     * @return значение ETag без кавычек
+     */
+    public String referenceDataETag() {
+        return eTag("r", referenceDataCache.getVersion());
+    }
+
+    /**
+     * Меняет ETag всех фильмов после удаления всех пользователей: у фильмов обнулились счётчики лайков.
+     *
+     * @param event событие удаления пользователей
+     */
+    @EventListener
+    public void onUsersDeleted(UsersDeletedEvent event) {
+        filmsGeneration.incrementAndGet();
+    }
+
+    private String eTag(String kind, Object version) {
+        return kind + epoch + "-" + version;
+    }
+}
@@ -5,16 +5,25 @@ import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.ResourceNotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.FilmLikeResult;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.film.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmFacets;
 import ru.yandex.practicum.filmorate.storage.film.FilmLikeDbStorage;
-import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
-import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
-import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmLikeIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.LikeWriteBuffer;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceDataCache;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Сервис для управления фильмами: добавление, обновление, получение,
@@ -22,37 +31,115 @@ import java.util.stream.Collectors;
  */
 @Service
 public class FilmService {
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_LIKES_BATCH_SIZE = 10_000;
+    public static final int MAX_RECOMMENDATIONS_LIMIT = 100;
+    public static final int MAX_SEARCH_LIMIT = 100;
 
-    private final FilmStorage filmStorage;
+    private final CachingFilmStorage filmStorage;
     private final UserStorage userStorage;
-    private final MpaStorage mpaStorage;
-    private final GenreStorage genreStorage;
+    private final ReferenceDataCache referenceDataCache;
     private final FilmLikeDbStorage filmLikeDbStorage;
+    private final PopularityLeaderboard leaderboard;
+    private final LikeWriteBuffer likeWriteBuffer;
+    private final FilmLikeIndex filmLikeIndex;
+    private final FilmSearchIndex filmSearchIndex;
+    private final EntityVersions entityVersions;
 
-    public FilmService(@Qualifier("filmDbStorage") FilmStorage filmStorage,
+    public FilmService(CachingFilmStorage filmStorage,
                        @Qualifier("userDbStorage") UserStorage userStorage,
-                       MpaStorage mpaStorage,
-                       GenreStorage genreStorage,
-                       FilmLikeDbStorage filmLikeDbStorage) {
+                       ReferenceDataCache referenceDataCache,
+                       FilmLikeDbStorage filmLikeDbStorage,
+                       PopularityLeaderboard leaderboard,
+                       LikeWriteBuffer likeWriteBuffer,
+                       FilmLikeIndex filmLikeIndex,
+                       FilmSearchIndex filmSearchIndex,
+                       EntityVersions entityVersions) {
         this.filmStorage = filmStorage;
         this.userStorage = userStorage;
-        this.mpaStorage = mpaStorage;
-        this.genreStorage = genreStorage;
+        this.referenceDataCache = referenceDataCache;
         this.filmLikeDbStorage = filmLikeDbStorage;
+        this.leaderboard = leaderboard;
+        this.likeWriteBuffer = likeWriteBuffer;
+        this.filmLikeIndex = filmLikeIndex;
+        this.filmSearchIndex = filmSearchIndex;
+        this.entityVersions = entityVersions;
     }
 
     /**
      * Добавляет лайк фильму от указанного пользователя.
+     * В режиме отложенной записи лайк попадает в {@link LikeWriteBuffer}, повторный лайк игнорируется.
      *
      * @param filmId ID фильма
      * @param userId ID пользователя
      * @throws ResourceNotFoundException если фильм или пользователь не найден
      */
     public void addLike(int filmId, int userId) {
-        if (filmStorage.getFilmById(filmId).isEmpty() || userStorage.getUserById(userId).isEmpty()) {
+        if (!filmStorage.existsById(filmId) || !userStorage.existsById(userId)) {
             throw new ResourceNotFoundException("Фильм или пользователь не найден");
         }
+        if (likeWriteBuffer.isEnabled()) {
+            if (likeWriteBuffer.like(filmId, userId)) {
+                leaderboard.increment(filmId);
+                entityVersions.filmChanged(filmId);
+            }
+            return;
+        }
         filmLikeDbStorage.addLike(filmId, userId);
+        filmStorage.evict(filmId);
+        leaderboard.increment(filmId);
+        entityVersions.filmChanged(filmId);
+    }
+
+    /**
+     * Добавляет пакет лайков. Существование фильмов и пользователей проверяется без загрузки сущностей,
+     * корректные лайки записываются пакетными запросами, уже существующие и повторяющиеся пропускаются.
+     *
+     * @param likes список лайков
+     * @return результат обработки каждого лайка в порядке запроса
+     * @throws ValidationException если пакет слишком большой или содержит пустые элементы
+     */
+    public List<FilmLikeResult> addLikes(List<FilmLike> likes) {
+        if (likes.size() > MAX_LIKES_BATCH_SIZE) {
+            throw new ValidationException("Пакет не может содержать больше " + MAX_LIKES_BATCH_SIZE + " лайков");
+        }
+        for (FilmLike like : likes) {
+            if (like == null) {
+                throw new ValidationException("Пакет лайков не может содержать пустые элементы");
+            }
+        }
+        List<FilmLikeResult> results = new ArrayList<>(likes.size());
+        List<FilmLike> toInsert = new ArrayList<>();
+        List<FilmLikeResult> pending = new ArrayList<>();
+        Set<FilmLike> seen = new HashSet<>();
+        for (FilmLike like : likes) {
+            FilmLikeResult result = new FilmLikeResult(like.getFilmId(), like.getUserId(), null);
+            if (!filmStorage.existsById(like.getFilmId()) || !userStorage.existsById(like.getUserId())) {
+                result.setStatus(FilmLikeResult.Status.NOT_FOUND);
+            } else if (!seen.add(like)) {
+                result.setStatus(FilmLikeResult.Status.DUPLICATE);
+            } else {
+                toInsert.add(like);
+                pending.add(result);
+            }
+            results.add(result);
+        }
+        if (!toInsert.isEmpty()) {
+            boolean[] inserted = addLikesToStorage(toInsert);
+            for (int i = 0; i < inserted.length; i++) {
+                FilmLikeResult result = pending.get(i);
+                if (inserted[i]) {
+                    result.setStatus(FilmLikeResult.Status.CREATED);
+                    filmStorage.evict(result.getFilmId());
+                    leaderboard.increment(result.getFilmId());
+                    entityVersions.filmChanged(result.getFilmId());
+                } else {
+                    result.setStatus(FilmLikeResult.Status.DUPLICATE);
+                }
+            }
+        }
+        return results;
     }
 
     /**
@@ -62,17 +149,88 @@ public class FilmService {
      * @param userId ID пользователя
      */
     public void removeLike(int filmId, int userId) {
-        filmLikeDbStorage.removeLike(filmId, userId);
+        if (likeWriteBuffer.isEnabled()) {
+            if (likeWriteBuffer.unlike(filmId, userId)) {
+                leaderboard.decrement(filmId);
+                entityVersions.filmChanged(filmId);
+            }
+            return;
+        }
+        if (filmLikeDbStorage.removeLike(filmId, userId)) {
+            filmStorage.evict(filmId);
+            leaderboard.decrement(filmId);
+            entityVersions.filmChanged(filmId);
+        }
     }
 
     /**
      * Возвращает список самых популярных фильмов по количеству лайков.
+     * Порядок фильмов берётся из рейтинга в памяти, из хранилища загружаются только сами фильмы.
      *
      * @param count максимальное количество фильмов
      * @return список популярных фильмов
      */
     public List<Film> getMostPopularFilms(int count) {
-        return filmStorage.getMostPopularFilms(count);
+        return getMostPopularFilms(count, null, null);
+    }
+
+    /**
+     * Возвращает список самых популярных фильмов указанного жанра и (или) года выпуска.
+     * Фильтры применяются к рейтингам по жанрам и годам в памяти, агрегация лайков в БД не выполняется.
+     *
+     * @param count   максимальное количество фильмов
+     * @param genreId ID жанра или {@code null}, если фильтр по жанру не нужен
+     * @param year    год выпуска или {@code null}, если фильтр по году не нужен
+     * @return список популярных фильмов
+     * @throws ResourceNotFoundException если жанр не найден
+     */
+    public List<Film> getMostPopularFilms(int count, Integer genreId, Integer year) {
+        if (genreId != null && referenceDataCache.getGenreById(genreId).isEmpty()) {
+            throw new ResourceNotFoundException("Жанр с id " + genreId + " не найден");
+        }
+        return withPendingLikes(filmStorage.getFilmsByIds(leaderboard.getTopFilmIds(count, genreId, year)));
+    }
+
+    /**
+     * Возвращает фильмы, рекомендуемые пользователю по лайкам пользователей со схожими вкусами.
+     * Рекомендации вычисляются по индексу лайков в памяти, из хранилища загружаются только сами фильмы.
+     *
+     * @param userId ID пользователя
+     * @param limit  максимальное количество фильмов
+     * @return список рекомендуемых фильмов по убыванию оценки
+     * @throws ResourceNotFoundException если пользователь не найден
+     * @throws ValidationException       если количество вне допустимого диапазона
+     */
+    public List<Film> getRecommendations(int userId, int limit) {
+        if (limit < 1 || limit > MAX_RECOMMENDATIONS_LIMIT) {
+            throw new ValidationException("Количество рекомендаций должно быть от 1 до " + MAX_RECOMMENDATIONS_LIMIT);
+        }
+        if (!userStorage.existsById(userId)) {
+            throw new ResourceNotFoundException("Пользователь с id " + userId + " не найден");
+        }
+        int[] filmIds = filmLikeIndex.recommendFilms(userId, limit);
+        return withPendingLikes(filmStorage.getFilmsByIds(Arrays.stream(filmIds).boxed().toList()));
+    }
+
+    /**
+     * Ищет фильмы по словам из названия и описания.
+     * Поиск выполняется по индексу в памяти, последнее слово запроса ищется как префикс;
+     * при одинаковой релевантности выше ранжируются более популярные фильмы.
+     *
+     * @param query текст запроса
+     * @param limit максимальное количество фильмов
+     * @return список найденных фильмов в порядке ранжирования
+     * @throws ValidationException если запрос не содержит слов или количество вне допустимого диапазона
+     */
+    public List<Film> searchFilms(String query, int limit) {
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new ValidationException("Количество результатов поиска должно быть от 1 до " + MAX_SEARCH_LIMIT);
+        }
+        if (FilmSearchIndex.tokenize(query).isEmpty()) {
+            throw new ValidationException("Поисковый запрос должен содержать хотя бы одно слово");
+        }
+        int[] filmIds = filmSearchIndex.search(query, limit, leaderboard::getLikes);
+        return withPendingLikes(filmStorage.getFilmsByIds(Arrays.stream(filmIds).boxed().toList()));
     }
 
     /**
@@ -83,8 +241,23 @@ public class FilmService {
      * @throws ResourceNotFoundException если фильм не найден
      */
     public Film getFilmById(int id) {
-        return filmStorage.getFilmById(id)
+        Film film = filmStorage.getFilmById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Фильм с id " + id + " не найден"));
+        return withPendingLikes(List.of(film)).get(0);
+    }
+
+    /**
+     * Возвращает ETag текущей версии фильма. Существование фильма проверяется без загрузки из хранилища.
+     *
+     * @param id ID фильма
+     * @return значение ETag
+     * @throws ResourceNotFoundException если фильм не найден
+     */
+    public String getFilmETag(int id) {
+        if (!filmStorage.existsById(id)) {
+            throw new ResourceNotFoundException("Фильм с id " + id + " не найден");
+        }
+        return entityVersions.filmETag(id);
     }
 
     /**
@@ -93,7 +266,31 @@ public class FilmService {
      * @return список фильмов
      */
     public List<Film> getAllFilms() {
-        return filmStorage.getAllFilms();
+        return withPendingLikes(filmStorage.getAllFilms());
+    }
+
+    /**
+     * Возвращает страницу фильмов с ID больше указанного курсора.
+     *
+     * @param afterId ID последнего фильма предыдущей страницы (0 для первой страницы)
+     * @param limit   размер страницы
+     * @return страница фильмов, упорядоченная по ID
+     * @throws ValidationException если размер страницы вне допустимого диапазона
+     */
+    public List<Film> getFilmsPage(int afterId, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        return withPendingLikes(filmStorage.getFilmsPage(afterId, limit));
+    }
+
+    /**
+     * Последовательно передаёт все фильмы обработчику без накопления в памяти.
+     *
+     * @param consumer обработчик фильмов
+     */
+    public void streamAllFilms(Consumer<Film> consumer) {
+        filmStorage.streamAllFilms(consumer);
     }
 
     /**
@@ -107,7 +304,10 @@ public class FilmService {
         validateFilm(film);
         validateMpa(film);
         validateFilmGenres(film);
-        return filmStorage.addFilm(film);
+        Film createdFilm = filmStorage.addFilm(film);
+        leaderboard.register(createdFilm.getId(), FilmFacets.of(createdFilm));
+        entityVersions.filmChanged(createdFilm.getId());
+        return createdFilm;
     }
 
     /**
@@ -119,13 +319,45 @@ public class FilmService {
      * @throws ValidationException       если нарушены бизнес-правила
      */
     public Film updateFilm(Film film) {
-        if (filmStorage.getFilmById(film.getId()).isEmpty()) {
+        if (!filmStorage.existsById(film.getId())) {
             throw new ResourceNotFoundException("Фильм с id " + film.getId() + " не найден");
         }
         validateFilm(film);
         validateMpa(film);
         validateFilmGenres(film);
-        return filmStorage.updateFilm(film);
+        Film updatedFilm = filmStorage.updateFilm(film);
+        leaderboard.register(updatedFilm.getId(), FilmFacets.of(updatedFilm));
+        entityVersions.filmChanged(updatedFilm.getId());
+        return updatedFilm;
+    }
+
+    private boolean[] addLikesToStorage(List<FilmLike> likes) {
+        if (!likeWriteBuffer.isEnabled()) {
+            return filmLikeDbStorage.addLikes(likes);
+        }
+        boolean[] added = new boolean[likes.size()];
+        for (int i = 0; i < likes.size(); i++) {
+            added[i] = likeWriteBuffer.like(likes.get(i).getFilmId(), likes.get(i).getUserId());
+        }
+        return added;
+    }
+
+    /**
+     * В режиме отложенной записи счётчик лайков в БД отстаёт от фактического,
+     * поэтому количество лайков берётся из рейтинга в памяти, который обновляется сразу.
+     * Фильмы могут быть общими объектами кеша, поэтому счётчики выставляются в копиях.
+     */
+    private List<Film> withPendingLikes(List<Film> films) {
+        if (!likeWriteBuffer.isEnabled()) {
+            return films;
+        }
+        List<Film> copies = new ArrayList<>(films.size());
+        for (Film film : films) {
+            Film copy = film.copy();
+            copy.setLikesCount(leaderboard.getLikes(film.getId()));
+            copies.add(copy);
+        }
+        return copies;
     }
 
     private void validateFilm(Film film) {
@@ -136,20 +368,17 @@ public class FilmService {
     }
 
     private void validateFilmGenres(Film film) {
-        if (film.getGenres() != null && !film.getGenres().isEmpty()) {
-            List<Integer> genreIds = film.getGenres().stream()
-                    .map(Genre::getId)
-                    .collect(Collectors.toList());
-            List<Genre> existingGenres = genreStorage.getGenresByIds(genreIds);
-
-            if (existingGenres.size() != genreIds.size()) {
-                throw new ValidationException("Ошибка жанра: один или несколько жанров не найдены.");
+        if (film.getGenres() != null) {
+            for (Genre genre : film.getGenres()) {
+                if (referenceDataCache.getGenreById(genre.getId()).isEmpty()) {
+                    throw new ValidationException("Ошибка жанра: один или несколько жанров не найдены.");
+                }
             }
         }
     }
 
     private void validateMpa(Film film) {
-        if (film.getMpa() == null || mpaStorage.getMpaById(film.getMpa().getId()).isEmpty()) {
+        if (film.getMpa() == null || referenceDataCache.getMpaById(film.getMpa().getId()).isEmpty()) {
             throw new ValidationException("MPA с id " + film.getMpa().getId() + " не найден");
         }
     }
@@ -4,7 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.ResourceNotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceDataCache;
 
 import java.util.List;
 import java.util.Optional;
@@ -15,14 +15,24 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class GenreService {
 
-    private final GenreStorage genreStorage;
+    private final ReferenceDataCache referenceDataCache;
+    private final EntityVersions entityVersions;
+
+    /**
+     * Возвращает ETag текущей версии справочника жанров.
+     *
+     * @return значение ETag
+     */
+    public String getETag() {
+        return entityVersions.referenceDataETag();
+    }
     /**
      * Возвращает список всех жанров.
      *
      * @return список жанров
      */
     public List<Genre> getAllGenres() {
-        return genreStorage.getAllGenres();
+        return referenceDataCache.getAllGenres();
     }
     /**
      * Возвращает жанр по ID.
@@ -32,7 +42,7 @@ public class GenreService {
      * @throws ResourceNotFoundException если жанр не найден
      */
     public Genre getGenreById(int id) {
-        Optional<Genre> genre = genreStorage.getGenreById(id);
+        Optional<Genre> genre = referenceDataCache.getGenreById(id);
         return genre.orElseThrow(() -> new ResourceNotFoundException("Жанр с id " + id + " не найден"));
     }
 }
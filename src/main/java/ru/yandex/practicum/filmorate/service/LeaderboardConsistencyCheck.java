@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.film.LikeWriteBuffer;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Периодическая сверка рейтинга популярности с количеством лайков в БД
+ * ({@link PopularityLeaderboard#checkConsistency()}). Интервал задаётся свойством
+ * {@code filmorate.leaderboard.consistency-check-interval}, нулевой интервал (по умолчанию) отключает сверку.
+ * При отложенной записи лайков ({@link LikeWriteBuffer}) сверка не запускается: БД отстаёт от рейтинга
+ * на содержимое буфера, и сверка отбросила бы ещё не записанные лайки.
+ */
+@Component
+@Slf4j
+public class LeaderboardConsistencyCheck {
+    private final PopularityLeaderboard leaderboard;
+    private final LikeWriteBuffer likeWriteBuffer;
+    private final Duration interval;
+    private ScheduledExecutorService scheduler;
+
+    public LeaderboardConsistencyCheck(PopularityLeaderboard leaderboard, LikeWriteBuffer likeWriteBuffer,
+                                       @Value("${filmorate.leaderboard.consistency-check-interval:0}")
+                                       Duration interval) {
+        this.leaderboard = leaderboard;
+        this.likeWriteBuffer = likeWriteBuffer;
+        this.interval = interval;
+    }
+
+    @PostConstruct
+    void start() {
+        if (interval.isZero() || interval.isNegative()) {
+            return;
+        }
+        if (likeWriteBuffer.isEnabled()) {
+            log.warn("Сверка рейтинга популярности с БД отключена: включена отложенная запись лайков");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "leaderboard-consistency-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::check, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Сверка рейтинга популярности с БД включена, интервал {}", interval);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Сверяет рейтинг с БД. Ошибка сверки не останавливает следующие запуски.
+     */
+    void check() {
+        try {
+            int repaired = leaderboard.checkConsistency();
+            if (repaired > 0) {
+                log.warn("Сверка рейтинга популярности исправила фильмов: {}", repaired);
+            }
+        } catch (RuntimeException e) {
+            log.error("Ошибка сверки рейтинга популярности с БД", e);
+        }
+    }
+}
@@ -4,7 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.ResourceNotFoundException;
 import ru.yandex.practicum.filmorate.model.Mpa;
-import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceDataCache;
 
 import java.util.List;
 import java.util.Optional;
@@ -15,14 +15,24 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class MpaService {
 
-    private final MpaStorage mpaStorage;
+    private final ReferenceDataCache referenceDataCache;
+    private final EntityVersions entityVersions;
+
+    /**
+     * Возвращает ETag текущей версии справочника рейтингов MPA.
+     *
+     * @return значение ETag
+     */
+    public String getETag() {
+        return entityVersions.referenceDataETag();
+    }
     /**
      * Возвращает список всех рейтингов MPA.
      *
      * @return список MPA
      */
     public List<Mpa> getAllMpa() {
-        return mpaStorage.getAllMpa();
+        return referenceDataCache.getAllMpa();
     }
     /**
      * Возвращает рейтинг MPA по ID.
@@ -32,7 +42,7 @@ public class MpaService {
      * @throws ResourceNotFoundException если рейтинг не найден
      */
     public Mpa getMpaById(int id) {
-        Optional<Mpa> mpa = mpaStorage.getMpaById(id);
+        Optional<Mpa> mpa = referenceDataCache.getMpaById(id);
         return mpa.orElseThrow(() -> new ResourceNotFoundException("MPA с id " + id + " не найден"));
     }
 }
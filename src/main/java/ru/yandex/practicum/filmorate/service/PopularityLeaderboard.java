@@ -0,0 +1,374 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmFacets;
+import ru.yandex.practicum.filmorate.storage.film.FilmLikeDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmsDeletedEvent;
+import ru.yandex.practicum.filmorate.storage.user.UsersDeletedEvent;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * Рейтинг популярности фильмов в памяти приложения.
+ * Хранит упорядоченное по количеству лайков множество фильмов и обновляется
+ * инкрементально при добавлении и удалении лайков, поэтому топ-N отдаётся без обращения к БД.
+ * Помимо общего рейтинга поддерживаются рейтинги по каждому жанру и году выпуска, которые обновляются
+ * теми же событиями и при изменении жанров фильма, поэтому топ-N с фильтром тоже не требует агрегации.
+ * <p>
+ * Изменения разных фильмов выполняются параллельно. Чтение топа сначала выполняется оптимистично
+ * (без блокировок, с проверкой счётчиков изменений), а при конкуренции с записью — под эксклюзивной
+ * блокировкой, поэтому результат всегда соответствует согласованному состоянию рейтинга.
+ */
+@Component
+@Slf4j
+public class PopularityLeaderboard {
+    private static final int OPTIMISTIC_READ_ATTEMPTS = 3;
+    private static final Comparator<Entry> BY_POPULARITY = Comparator
+            .comparingInt(Entry::likes).reversed()
+            .thenComparingInt(Entry::filmId);
+
+    private final FilmLikeDbStorage filmLikeDbStorage;
+    private final FilmDbStorage filmDbStorage;
+    private final Map<Integer, Integer> likesByFilm = new ConcurrentHashMap<>();
+    private final NavigableSet<Entry> ranking = new ConcurrentSkipListSet<>(BY_POPULARITY);
+    private final Map<Integer, FilmFacets> facetsByFilm = new ConcurrentHashMap<>();
+    private final Map<Integer, NavigableSet<Entry>> rankingByGenre = new ConcurrentHashMap<>();
+    private final Map<Integer, NavigableSet<Entry>> rankingByYear = new ConcurrentHashMap<>();
+    // Писатели разделяют "читающую" блокировку между собой, эксклюзивная нужна только читателю топа.
+    private final ReadWriteLock updateLock = new ReentrantReadWriteLock();
+    private final AtomicLong startedUpdates = new AtomicLong();
+    private final AtomicLong finishedUpdates = new AtomicLong();
+    // Расхождения, найденные предыдущей сверкой; доступ только из synchronized checkConsistency.
+    private final Map<Integer, Mismatch> suspectedMismatches = new HashMap<>();
+
+    public PopularityLeaderboard(FilmLikeDbStorage filmLikeDbStorage, FilmDbStorage filmDbStorage) {
+        this.filmLikeDbStorage = filmLikeDbStorage;
+        this.filmDbStorage = filmDbStorage;
+    }
+
+    /**
+     * Заполняет рейтинг количеством лайков из таблицы film_likes, а рейтинги по жанрам и годам —
+     * жанрами и датами выпуска фильмов.
+     */
+    @PostConstruct
+    public void load() {
+        Map<Integer, Integer> counts = filmLikeDbStorage.getLikeCounts();
+        Map<Integer, FilmFacets> facets = filmDbStorage.getFilmFacets();
+        updateLock.writeLock().lock();
+        try {
+            likesByFilm.clear();
+            ranking.clear();
+            facetsByFilm.clear();
+            rankingByGenre.clear();
+            rankingByYear.clear();
+            facetsByFilm.putAll(facets);
+            counts.forEach(this::set);
+        } finally {
+            updateLock.writeLock().unlock();
+        }
+        log.info("Рейтинг популярности загружен, фильмов: {}", counts.size());
+    }
+
+    /**
+     * Очищает рейтинг после удаления всех фильмов.
+     *
+     * @param event событие удаления фильмов
+     */
+    @EventListener
+    public void onFilmsDeleted(FilmsDeletedEvent event) {
+        updateLock.writeLock().lock();
+        try {
+            likesByFilm.clear();
+            ranking.clear();
+            facetsByFilm.clear();
+            rankingByGenre.clear();
+            rankingByYear.clear();
+        } finally {
+            updateLock.writeLock().unlock();
+        }
+        log.info("Рейтинг популярности очищен после удаления всех фильмов");
+    }
+
+    /**
+     * Обнуляет количество лайков всех фильмов после удаления всех пользователей вместе с их лайками.
+     * Фильмы остаются в рейтингах с прежними жанрами и годами выпуска.
+     *
+     * @param event событие удаления пользователей
+     */
+    @EventListener
+    public void onUsersDeleted(UsersDeletedEvent event) {
+        for (Integer filmId : likesByFilm.keySet()) {
+            set(filmId, 0);
+        }
+        log.info("Лайки в рейтинге популярности обнулены после удаления всех пользователей");
+    }
+
+    /**
+     * Добавляет в рейтинг новый фильм без лайков или обновляет жанры и год выпуска известного фильма,
+     * перенося его между рейтингами по жанрам и годам с сохранением количества лайков.
+     *
+     * @param filmId ID фильма
+     * @param facets год выпуска и жанры фильма
+     */
+    public void register(int filmId, FilmFacets facets) {
+        update(() -> likesByFilm.compute(filmId, (id, current) -> {
+            int likes = current == null ? 0 : current;
+            if (current != null) {
+                unrank(id, likes);
+            }
+            facetsByFilm.put(id, facets);
+            rank(id, likes);
+            return likes;
+        }));
+    }
+
+    /**
+     * Увеличивает количество лайков фильма на единицу.
+     *
+     * @param filmId ID фильма
+     */
+    public void increment(int filmId) {
+        change(filmId, 1);
+    }
+
+    /**
+     * Уменьшает количество лайков фильма на единицу.
+     *
+     * @param filmId ID фильма
+     */
+    public void decrement(int filmId) {
+        change(filmId, -1);
+    }
+
+    /**
+     * Возвращает текущее количество лайков фильма.
+     *
+     * @param filmId ID фильма
+     * @return количество лайков или 0, если фильм неизвестен
+     */
+    public int getLikes(int filmId) {
+        return likesByFilm.getOrDefault(filmId, 0);
+    }
+
+    /**
+     * Возвращает ID самых популярных фильмов по убыванию количества лайков,
+     * при равенстве — по возрастанию ID.
+     *
+     * @param count максимальное количество фильмов
+     * @return список ID фильмов
+     */
+    public List<Integer> getTopFilmIds(int count) {
+        return getTopFilmIds(count, null, null);
+    }
+
+    /**
+     * Возвращает ID самых популярных фильмов указанного жанра и (или) года выпуска
+     * по убыванию количества лайков, при равенстве — по возрастанию ID.
+     * Если заданы оба фильтра, просматривается рейтинг года с проверкой жанра.
+     *
+     * @param count   максимальное количество фильмов
+     * @param genreId ID жанра или {@code null}
+     * @param year    год выпуска или {@code null}
+     * @return список ID фильмов
+     */
+    public List<Integer> getTopFilmIds(int count, Integer genreId, Integer year) {
+        for (int attempt = 0; attempt < OPTIMISTIC_READ_ATTEMPTS; attempt++) {
+            long finished = finishedUpdates.get();
+            long started = startedUpdates.get();
+            if (started != finished) {
+                continue;
+            }
+            List<Integer> result = collectTop(count, genreId, year);
+            if (startedUpdates.get() == started) {
+                return result;
+            }
+        }
+        updateLock.writeLock().lock();
+        try {
+            return collectTop(count, genreId, year);
+        } finally {
+            updateLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Сверяет рейтинг с фактическим количеством лайков в БД и исправляет устойчивые расхождения.
+     * Лайк сначала фиксируется в БД и только затем попадает в рейтинг, поэтому чтение БД между этими шагами
+     * видит мнимое расхождение. Расхождение исправляется, только если предыдущая сверка нашла его с теми же
+     * значениями в памяти и в БД, а значение в памяти заменяется, только если оно не изменилось с момента чтения.
+     * Не подходит для режима отложенной записи лайков: лайки из буфера ещё не попали в БД.
+     * Периодически вызывается {@link LeaderboardConsistencyCheck}.
+     *
+     * @return количество исправленных фильмов
+     */
+    public synchronized int checkConsistency() {
+        Map<Integer, Integer> actual = filmLikeDbStorage.getLikeCounts();
+        Map<Integer, Mismatch> found = new HashMap<>();
+        for (Integer filmId : findMismatches(actual)) {
+            found.put(filmId, new Mismatch(likesByFilm.get(filmId), actual.get(filmId)));
+        }
+        int repaired = 0;
+        for (Iterator<Map.Entry<Integer, Mismatch>> it = found.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Integer, Mismatch> entry = it.next();
+            Mismatch mismatch = entry.getValue();
+            if (!mismatch.equals(suspectedMismatches.get(entry.getKey()))) {
+                continue;
+            }
+            log.warn("Расхождение рейтинга для фильма {}: в памяти {}, в БД {}",
+                    entry.getKey(), mismatch.inMemory(), mismatch.inDatabase());
+            if (replace(entry.getKey(), mismatch.inMemory(), mismatch.inDatabase())) {
+                repaired++;
+                it.remove();
+            }
+        }
+        suspectedMismatches.clear();
+        suspectedMismatches.putAll(found);
+        return repaired;
+    }
+
+    Set<Integer> findMismatches(Map<Integer, Integer> actual) {
+        Set<Integer> mismatched = new HashSet<>();
+        actual.forEach((filmId, likes) -> {
+            if (!likes.equals(likesByFilm.get(filmId))) {
+                mismatched.add(filmId);
+            }
+        });
+        for (Integer filmId : likesByFilm.keySet()) {
+            if (!actual.containsKey(filmId)) {
+                mismatched.add(filmId);
+            }
+        }
+        return mismatched;
+    }
+
+    private List<Integer> collectTop(int count, Integer genreId, Integer year) {
+        NavigableSet<Entry> source = ranking;
+        IntPredicate filter = filmId -> true;
+        if (year != null) {
+            source = rankingByYear.get(year);
+            if (genreId != null) {
+                filter = filmId -> {
+                    FilmFacets facets = facetsByFilm.get(filmId);
+                    return facets != null && facets.genreIds().contains(genreId);
+                };
+            }
+        } else if (genreId != null) {
+            source = rankingByGenre.get(genreId);
+        }
+        List<Integer> result = new ArrayList<>(Math.max(0, Math.min(count, likesByFilm.size())));
+        if (source == null) {
+            return result;
+        }
+        for (Entry entry : source) {
+            if (result.size() >= count) {
+                break;
+            }
+            if (filter.test(entry.filmId())) {
+                result.add(entry.filmId());
+            }
+        }
+        return result;
+    }
+
+    private void change(int filmId, int delta) {
+        update(() -> likesByFilm.compute(filmId, (id, current) -> {
+            int old = current == null ? 0 : current;
+            int updated = old + delta;
+            if (current != null) {
+                unrank(id, old);
+            }
+            rank(id, updated);
+            return updated;
+        }));
+    }
+
+    private void set(int filmId, int likes) {
+        update(() -> likesByFilm.compute(filmId, (id, current) -> {
+            if (current != null) {
+                unrank(id, current);
+            }
+            rank(id, likes);
+            return likes;
+        }));
+    }
+
+    // Заменяет количество лайков, только если в рейтинге всё ещё ожидаемое значение; likes == null удаляет фильм.
+    private boolean replace(int filmId, Integer expected, Integer likes) {
+        boolean[] replaced = {false};
+        update(() -> likesByFilm.compute(filmId, (id, current) -> {
+            if (!Objects.equals(current, expected)) {
+                return current;
+            }
+            replaced[0] = true;
+            if (current != null) {
+                unrank(id, current);
+            }
+            if (likes == null) {
+                facetsByFilm.remove(id);
+                return null;
+            }
+            rank(id, likes);
+            return likes;
+        }));
+        return replaced[0];
+    }
+
+    // Вызывается только внутри compute по фильму, поэтому признаки фильма не меняются во время обновления.
+    private void rank(int filmId, int likes) {
+        Entry entry = new Entry(filmId, likes);
+        ranking.add(entry);
+        FilmFacets facets = facetsByFilm.get(filmId);
+        if (facets != null) {
+            rankingByYear.computeIfAbsent(facets.releaseYear(), year -> new ConcurrentSkipListSet<>(BY_POPULARITY))
+                    .add(entry);
+            facets.genreIds().forEachInt(genreId -> rankingByGenre
+                    .computeIfAbsent(genreId, id -> new ConcurrentSkipListSet<>(BY_POPULARITY))
+                    .add(entry));
+        }
+    }
+
+    private void unrank(int filmId, int likes) {
+        Entry entry = new Entry(filmId, likes);
+        ranking.remove(entry);
+        FilmFacets facets = facetsByFilm.get(filmId);
+        if (facets != null) {
+            NavigableSet<Entry> byYear = rankingByYear.get(facets.releaseYear());
+            if (byYear != null) {
+                byYear.remove(entry);
+            }
+            facets.genreIds().forEachInt(genreId -> {
+                NavigableSet<Entry> byGenre = rankingByGenre.get(genreId);
+                if (byGenre != null) {
+                    byGenre.remove(entry);
+                }
+            });
+        }
+    }
+
+    private void update(Runnable action) {
+        updateLock.readLock().lock();
+        startedUpdates.incrementAndGet();
+        try {
+            action.run();
+        } finally {
+            finishedUpdates.incrementAndGet();
+            updateLock.readLock().unlock();
+        }
+    }
+
+    private record Entry(int filmId, int likes) {
+    }
+
+    private record Mismatch(Integer inMemory, Integer inDatabase) {
+    }
+}
@@ -4,11 +4,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.ResourceNotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.friend.FriendStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Сервис для управления пользователями и их друзьями.
@@ -16,14 +18,20 @@ import java.util.List;
 @Service
 @Slf4j
 public class UserService {
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_SUGGESTIONS_LIMIT = 100;
 
     private final UserStorage userStorage;
     private final FriendStorage friendStorage;
+    private final EntityVersions entityVersions;
 
     public UserService(@Qualifier("userDbStorage") UserStorage userStorage,
-                       FriendStorage friendStorage) {
+                       FriendStorage friendStorage,
+                       EntityVersions entityVersions) {
         this.userStorage = userStorage;
         this.friendStorage = friendStorage;
+        this.entityVersions = entityVersions;
     }
 
     /**
@@ -34,10 +42,11 @@ public class UserService {
      * @throws ResourceNotFoundException если один из пользователей не найден
      */
     public void addFriend(int userId, int friendId) {
-        getUserById(userId);
-        getUserById(friendId);
+        ensureUserExists(userId);
+        ensureUserExists(friendId);
 
         friendStorage.addFriend(userId, friendId);
+        entityVersions.userChanged(userId);
         log.info("Пользователь {} добавил в друзья пользователя {}", userId, friendId);
     }
     /**
@@ -48,10 +57,11 @@ public class UserService {
      * @throws ResourceNotFoundException если один из пользователей не найден
      */
     public void removeFriend(int userId, int friendId) {
-        getUserById(userId);
-        getUserById(friendId);
+        ensureUserExists(userId);
+        ensureUserExists(friendId);
 
         friendStorage.removeFriend(userId, friendId);
+        entityVersions.userChanged(userId);
         log.info("Пользователь {} удалил из друзей пользователя {}", userId, friendId);
     }
 
@@ -64,7 +74,7 @@ public class UserService {
      */
     public List<User> getFriends(int userId) {
         // Проверка существования пользователя
-        getUserById(userId);
+        ensureUserExists(userId);
 
         // Получение друзей как списка объектов User
         return friendStorage.getFriends(userId);
@@ -79,13 +89,30 @@ public class UserService {
      * @throws ResourceNotFoundException если один из пользователей не найден
      */
     public List<User> getCommonFriends(int userId, int otherId) {
-        getUserById(userId);
-        getUserById(otherId);
+        ensureUserExists(userId);
+        ensureUserExists(otherId);
 
         // Получение общего списка друзей сразу через friendStorage
         return friendStorage.getCommonFriends(userId, otherId);
     }
 
+    /**
+     * Возвращает рекомендуемых друзей: пользователей, с которыми больше всего общих друзей.
+     *
+     * @param userId ID пользователя
+     * @param limit  максимальное количество рекомендаций
+     * @return список рекомендуемых пользователей
+     * @throws ResourceNotFoundException если пользователь не найден
+     * @throws ValidationException       если количество вне допустимого диапазона
+     */
+    public List<User> getFriendSuggestions(int userId, int limit) {
+        if (limit < 1 || limit > MAX_SUGGESTIONS_LIMIT) {
+            throw new ValidationException("Количество рекомендаций должно быть от 1 до " + MAX_SUGGESTIONS_LIMIT);
+        }
+        ensureUserExists(userId);
+        return friendStorage.getFriendSuggestions(userId, limit);
+    }
+
     /**
      * Возвращает пользователя по ID.
      *
@@ -99,6 +126,19 @@ public class UserService {
 
     }
 
+    /**
+     * Возвращает ETag текущей версии пользователя. Существование пользователя проверяется без загрузки
+     * из хранилища.
+     *
+     * @param id ID пользователя
+     * @return значение ETag
+     * @throws ResourceNotFoundException если пользователь не найден
+     */
+    public String getUserETag(int id) {
+        ensureUserExists(id);
+        return entityVersions.userETag(id);
+    }
+
     /**
      * Возвращает список всех пользователей.
      *
@@ -108,6 +148,30 @@ public class UserService {
         return userStorage.getAllUsers();
     }
 
+    /**
+     * Возвращает страницу пользователей с ID больше указанного курсора.
+     *
+     * @param afterId ID последнего пользователя предыдущей страницы (0 для первой страницы)
+     * @param limit   размер страницы
+     * @return страница пользователей, упорядоченная по ID
+     * @throws ValidationException если размер страницы вне допустимого диапазона
+     */
+    public List<User> getUsersPage(int afterId, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        return userStorage.getUsersPage(afterId, limit);
+    }
+
+    /**
+     * Последовательно передаёт всех пользователей обработчику без накопления в памяти.
+     *
+     * @param consumer обработчик пользователей
+     */
+    public void streamAllUsers(Consumer<User> consumer) {
+        userStorage.streamAllUsers(consumer);
+    }
+
     /**
      * Создаёт нового пользователя.
      *
@@ -115,7 +179,9 @@ public class UserService {
      * @return созданный пользователь
      */
     public User createUser(User user) {
-        return userStorage.createUser(user);
+        User createdUser = userStorage.createUser(user);
+        entityVersions.userChanged(createdUser.getId());
+        return createdUser;
     }
 
     /**
@@ -126,9 +192,15 @@ public class UserService {
      * @throws ResourceNotFoundException если пользователь не найден
      */
     public User updateUser(User user) {
-        if (userStorage.getUserById(user.getId()).isEmpty()) {
-            throw new ResourceNotFoundException("Пользователь с id " + user.getId() + " не найден");
+        ensureUserExists(user.getId());
+        User updatedUser = userStorage.updateUser(user);
+        entityVersions.userChanged(updatedUser.getId());
+        return updatedUser;
+    }
+
+    private void ensureUserExists(int id) {
+        if (!userStorage.existsById(id)) {
+            throw new ResourceNotFoundException("Пользователь с id " + id + " не найден");
         }
-        return userStorage.updateUser(user);
     }
 }
@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Отложенное обновление индексов в памяти до фиксации транзакции.
+ * Индексы должны отражать только зафиксированные данные: если транзакция откатится,
+ * изменение индекса не выполняется.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * Выполняет действие после фиксации текущей транзакции или сразу, если транзакции нет
+     * (каждый запрос JdbcTemplate в этом случае фиксируется автоматически).
+     *
+     * @param action действие над индексом в памяти
+     */
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
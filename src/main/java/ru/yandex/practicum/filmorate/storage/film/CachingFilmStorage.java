@@ -0,0 +1,164 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.user.UsersDeletedEvent;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Кеширующая обёртка над {@link FilmStorage}.
+ * Отдельные фильмы читаются через ограниченный по размеру кеш (вытеснение W-TinyLFU, время жизни записи),
+ * добавление и обновление фильма сбрасывают его запись. Выборки всех фильмов и страниц кеш не используют.
+ * Наружу выдаются копии фильмов, поэтому изменения у вызывающего кода не попадают в кеш.
+ * Счётчики попаданий, промахов и вытеснений публикуются в метриках как {@code cache.*{cache=films}}.
+ */
+@Component("cachingFilmStorage")
+@Slf4j
+public class CachingFilmStorage implements FilmStorage {
+    private final FilmStorage delegate;
+    private final Cache<Integer, Film> cache;
+    // Число сбросов кеша: пакетно загруженный фильм кешируется, только если за время загрузки сбросов не было.
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public CachingFilmStorage(@Qualifier("filmDbStorage") FilmStorage delegate,
+                              MeterRegistry meterRegistry,
+                              @Value("${filmorate.film-cache.capacity:10000}") long capacity,
+                              @Value("${filmorate.film-cache.ttl:10m}") Duration ttl) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(capacity)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "films");
+        log.info("Кеш фильмов: ёмкость {}, время жизни {}", capacity, ttl);
+    }
+
+    @Override
+    public Film addFilm(Film film) {
+        Film createdFilm = delegate.addFilm(film);
+        evict(createdFilm.getId());
+        return createdFilm;
+    }
+
+    @Override
+    public Film updateFilm(Film film) {
+        Film updatedFilm = delegate.updateFilm(film);
+        evict(film.getId());
+        return updatedFilm;
+    }
+
+    @Override
+    public Optional<Film> getFilmById(int id) {
+        return Optional.ofNullable(cache.get(id, key -> delegate.getFilmById(key).orElse(null))).map(Film::copy);
+    }
+
+    @Override
+    public boolean existsById(int id) {
+        return delegate.existsById(id);
+    }
+
+    /**
+     * Возвращает фильмы по списку ID: найденные в кеше берутся из него,
+     * остальные загружаются из хранилища одним пакетным запросом и кешируются.
+     * Загруженный фильм не кешируется, если во время загрузки кеш сбрасывался: иначе устаревшая версия
+     * фильма, прочитанная до изменения, могла бы вернуться в кеш на всё время жизни записи.
+     *
+     * @param ids список ID фильмов
+     * @return список найденных фильмов в порядке следования ID
+     */
+    @Override
+    public List<Film> getFilmsByIds(List<Integer> ids) {
+        Map<Integer, Film> filmsById = new HashMap<>(cache.getAllPresent(ids));
+        List<Integer> missing = ids.stream().distinct().filter(id -> !filmsById.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            long version = invalidations.get();
+            for (Film film : delegate.getFilmsByIds(missing)) {
+                filmsById.put(film.getId(), film);
+                cache.asMap().compute(film.getId(), (id, cached) ->
+                        cached != null || invalidations.get() != version ? cached : film);
+            }
+        }
+        List<Film> films = new ArrayList<>(filmsById.size());
+        for (Integer id : ids) {
+            Film film = filmsById.get(id);
+            if (film != null) {
+                films.add(film.copy());
+            }
+        }
+        return films;
+    }
+
+    @Override
+    public List<Film> getAllFilms() {
+        return delegate.getAllFilms();
+    }
+
+    @Override
+    public List<Film> getFilmsPage(int afterId, int limit) {
+        return delegate.getFilmsPage(afterId, limit);
+    }
+
+    @Override
+    public void streamAllFilms(Consumer<Film> consumer) {
+        delegate.streamAllFilms(consumer);
+    }
+
+    @Override
+    public List<Film> getMostPopularFilms(int count) {
+        return delegate.getMostPopularFilms(count);
+    }
+
+    /**
+     * Удаляет фильм из кеша, например после изменения количества его лайков.
+     *
+     * @param filmId ID фильма
+     */
+    public void evict(int filmId) {
+        // Сброс под блокировкой записи, чтобы пакетная загрузка не вернула устаревший фильм после него.
+        cache.asMap().compute(filmId, (id, film) -> {
+            invalidations.incrementAndGet();
+            return null;
+        });
+    }
+
+    /**
+     * Очищает кеш после удаления всех фильмов.
+     *
+     * @param event событие удаления фильмов
+     */
+    @EventListener
+    public void onFilmsDeleted(FilmsDeletedEvent event) {
+        evictAll();
+    }
+
+    /**
+     * Очищает кеш после удаления всех пользователей: у закешированных фильмов устарели счётчики лайков.
+     *
+     * @param event событие удаления пользователей
+     */
+    @EventListener
+    public void onUsersDeleted(UsersDeletedEvent event) {
+        evictAll();
+    }
+
+    /**
+     * Полностью очищает кеш фильмов.
+     */
+    public void evictAll() {
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+}
@@ -1,20 +1,31 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.AfterCommit;
+import ru.yandex.practicum.filmorate.util.IdBitmap;
+import ru.yandex.practicum.filmorate.util.SortedIntSet;
+import ru.yandex.practicum.filmorate.util.SortedIntSetGrouper;
 
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.function.Consumer;
 /**
  * Реализация {@link FilmStorage} для работы с фильмами в реляционной БД через JdbcTemplate.
  * Поддерживает добавление, обновление, получение и удаление фильмов, а также работу с жанрами и рейтингами MPA.
@@ -23,15 +34,50 @@ import java.util.*;
 @Slf4j
 @RequiredArgsConstructor
 public class FilmDbStorage implements FilmStorage {
+    // Максимальное количество ID фильмов в одном запросе IN (...).
+    private static final int IN_BATCH_SIZE = 1000;
+    // Количество строк, которое драйвер читает за один раз при потоковой выгрузке.
+    private static final int STREAM_FETCH_SIZE = 500;
 
     private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final FilmSearchIndex filmSearchIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    // ID существующих фильмов для проверок существования без запроса к БД.
+    private final IdBitmap filmIds = new IdBitmap();
+
+    /**
+     * Загружает ID существующих фильмов в битовую карту.
+     */
+    @PostConstruct
+    public void loadFilmIds() {
+        jdbcTemplate.query("SELECT film_id FROM films", rs -> {
+            filmIds.add(rs.getInt("film_id"));
+        });
+    }
+
+    /**
+     * Строит поисковый индекс по названиям и описаниям всех фильмов.
+     */
+    @PostConstruct
+    public void loadSearchIndex() {
+        FilmSearchIndex.Loader loader = filmSearchIndex.loader();
+        jdbcTemplate.query("SELECT film_id, film_name, description FROM films ORDER BY film_id", rs -> {
+            loader.add(rs.getInt("film_id"), rs.getString("film_name"), rs.getString("description"));
+        });
+        loader.finish();
+        log.info("Поисковый индекс фильмов построен, фильмов: {}", filmSearchIndex.size());
+    }
+
     /**
-     * Добавляет фильм в базу данных.
+     * Добавляет фильм и его жанры в базу данных одной транзакцией.
+     * ID фильма попадает в индексы в памяти только после фиксации транзакции.
      *
      * @param film объект фильма
      * @return добавленный фильм с присвоенным ID
      */
     @Override
+    @Transactional
     public Film addFilm(Film film) {
         String sql = "INSERT INTO films (film_name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)";
         KeyHolder keyHolder = new GeneratedKeyHolder();
@@ -44,22 +90,34 @@ public class FilmDbStorage implements FilmStorage {
             stmt.setInt(5, film.getMpa().getId());
             return stmt;
         }, keyHolder);
-        film.setId(Objects.requireNonNull(keyHolder.getKey()).intValue());
+        int filmId = Objects.requireNonNull(keyHolder.getKey()).intValue();
+        film.setId(filmId);
+        String name = film.getName();
+        String description = film.getDescription();
+        AfterCommit.run(() -> {
+            filmIds.add(filmId);
+            filmSearchIndex.index(filmId, name, description);
+        });
         if (film.getGenres() != null && !film.getGenres().isEmpty()) {
             updateFilmGenres(film);
         }
         return film;
     }
     /**
-     * Обновляет информацию о фильме.
+     * Обновляет информацию о фильме и его жанры одной транзакцией.
      *
      * @param film объект фильма
      * @return обновлённый фильм
      */
     @Override
+    @Transactional
     public Film updateFilm(Film film) {
         String sql = "UPDATE films SET film_name = ?, description = ?, release_date = ?, duration = ?, mpa_id = ? WHERE film_id = ?";
         jdbcTemplate.update(sql, film.getName(), film.getDescription(), Date.valueOf(film.getReleaseDate()), film.getDuration(), film.getMpa().getId(), film.getId());
+        int filmId = film.getId();
+        String name = film.getName();
+        String description = film.getDescription();
+        AfterCommit.run(() -> filmSearchIndex.index(filmId, name, description));
 
         String deleteGenres = "DELETE FROM film_genres WHERE film_id = ?";
         jdbcTemplate.update(deleteGenres, film.getId());
@@ -82,9 +140,58 @@ public class FilmDbStorage implements FilmStorage {
         if (films.isEmpty()) {
             return Optional.empty();
         }
-        Film film = films.get(0);
-        film.setGenres(getGenresByFilmId(film.getId()));
-        return Optional.of(film);
+        loadGenres(films);
+        return Optional.of(films.get(0));
+    }
+    /**
+     * Проверяет существование фильма.
+     * Сначала проверяется битовая карта известных ID, при промахе выполняется запрос к БД.
+     *
+     * @param id ID фильма
+     * @return {@code true}, если фильм существует
+     */
+    @Override
+    public boolean existsById(int id) {
+        if (filmIds.contains(id)) {
+            return true;
+        }
+        Boolean exists = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM films WHERE film_id = ?)",
+                Boolean.class, id);
+        if (Boolean.TRUE.equals(exists)) {
+            AfterCommit.run(() -> filmIds.add(id));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Возвращает фильмы по списку ID в порядке следования ID.
+     * Фильмы и их жанры загружаются пакетными запросами {@code IN (...)}.
+     *
+     * @param ids список ID фильмов
+     * @return список найденных фильмов
+     */
+    @Override
+    public List<Film> getFilmsByIds(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sql = "SELECT f.*, m.mpa_name FROM films f JOIN mpa m ON f.mpa_id = m.mpa_id WHERE f.film_id IN (:ids)";
+        Map<Integer, Film> filmsById = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += IN_BATCH_SIZE) {
+            List<Integer> batch = ids.subList(from, Math.min(from + IN_BATCH_SIZE, ids.size()));
+            namedParameterJdbcTemplate.query(sql, new MapSqlParameterSource("ids", batch), this::mapRowToFilm)
+                    .forEach(film -> filmsById.put(film.getId(), film));
+        }
+        List<Film> films = new ArrayList<>(filmsById.size());
+        for (Integer id : ids) {
+            Film film = filmsById.get(id);
+            if (film != null) {
+                films.add(film);
+            }
+        }
+        loadGenres(films);
+        return films;
     }
     /**
      * Возвращает список всех фильмов.
@@ -95,25 +202,106 @@ public class FilmDbStorage implements FilmStorage {
     public List<Film> getAllFilms() {
         String sql = "SELECT f.*, m.mpa_name FROM films f JOIN mpa m ON f.mpa_id = m.mpa_id";
         List<Film> films = jdbcTemplate.query(sql, this::mapRowToFilm);
-        films.forEach(film -> film.setGenres(getGenresByFilmId(film.getId())));
+        if (!films.isEmpty()) {
+            Map<Integer, Film> filmsById = indexById(films);
+            String genresSql = "SELECT fg.film_id, g.genre_id, g.genre_name " +
+                    "FROM film_genres fg JOIN genres g ON fg.genre_id = g.genre_id";
+            jdbcTemplate.query(genresSql, genreCollector(filmsById));
+        }
+        return films;
+    }
+    /**
+     * Возвращает страницу фильмов с ID больше указанного.
+     * Использует keyset-пагинацию по первичному ключу, поэтому стоимость не растёт с номером страницы.
+     *
+     * @param afterId ID, после которого начинается страница
+     * @param limit   максимальный размер страницы
+     * @return страница фильмов, упорядоченная по ID
+     */
+    @Override
+    public List<Film> getFilmsPage(int afterId, int limit) {
+        String sql = "SELECT f.*, m.mpa_name FROM films f JOIN mpa m ON f.mpa_id = m.mpa_id " +
+                "WHERE f.film_id > ? ORDER BY f.film_id LIMIT ?";
+        List<Film> films = jdbcTemplate.query(sql, this::mapRowToFilm, afterId, limit);
+        loadGenres(films);
         return films;
     }
+    /**
+     * Последовательно передаёт все фильмы обработчику.
+     * Фильмы и жанры читаются одним упорядоченным по ID запросом через однонаправленный курсор,
+     * поэтому в памяти одновременно находится только текущий фильм.
+     *
+     * @param consumer обработчик фильмов
+     */
+    @Override
+    public void streamAllFilms(Consumer<Film> consumer) {
+        String sql = "SELECT f.*, m.mpa_name, g.genre_id, g.genre_name FROM films f " +
+                "JOIN mpa m ON f.mpa_id = m.mpa_id " +
+                "LEFT JOIN film_genres fg ON f.film_id = fg.film_id " +
+                "LEFT JOIN genres g ON fg.genre_id = g.genre_id " +
+                "ORDER BY f.film_id";
+        Film[] current = new Film[1];
+        jdbcTemplate.query(connection -> {
+            PreparedStatement stmt = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            return stmt;
+        }, rs -> {
+            int filmId = rs.getInt("film_id");
+            if (current[0] == null || current[0].getId() != filmId) {
+                if (current[0] != null) {
+                    consumer.accept(current[0]);
+                }
+                current[0] = mapRowToFilm(rs, 0);
+            }
+            rs.getInt("genre_id");
+            if (!rs.wasNull()) {
+                current[0].getGenres().add(mapRowToGenre(rs));
+            }
+        });
+        if (current[0] != null) {
+            consumer.accept(current[0]);
+        }
+    }
+
+    /**
+     * Возвращает год выпуска и жанры всех фильмов.
+     *
+     * @return признаки фильмов по ID фильма
+     */
+    public Map<Integer, FilmFacets> getFilmFacets() {
+        Map<Integer, SortedIntSet> genresByFilm = new HashMap<>();
+        SortedIntSetGrouper grouper = new SortedIntSetGrouper(
+                (genreIds, filmId) -> genresByFilm.put(filmId, genreIds));
+        jdbcTemplate.query("SELECT film_id, genre_id FROM film_genres ORDER BY film_id", rs -> {
+            grouper.add(rs.getInt("film_id"), rs.getInt("genre_id"));
+        });
+        grouper.finish();
+        Map<Integer, FilmFacets> facets = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, release_date FROM films", rs -> {
+            int filmId = rs.getInt("film_id");
+            facets.put(filmId, new FilmFacets(rs.getDate("release_date").toLocalDate().getYear(),
+                    genresByFilm.getOrDefault(filmId, SortedIntSet.empty())));
+        });
+        return facets;
+    }
+
     /**
      * Возвращает список наиболее популярных фильмов по количеству лайков.
+     * Использует индекс по счётчику films.likes_count вместо агрегации film_likes.
      *
      * @param count максимальное количество фильмов
      * @return отсортированный список популярных фильмов
      */
     public List<Film> getMostPopularFilms(int count) {
-        String sql = "SELECT f.*, m.mpa_id, m.mpa_name, COUNT(fl.user_id) AS likes_count " +
+        String sql = "SELECT f.*, m.mpa_name " +
                 "FROM films f " +
-                "LEFT JOIN film_likes fl ON f.film_id = fl.film_id " +
                 "JOIN mpa m ON f.mpa_id = m.mpa_id " +
-                "GROUP BY f.film_id, m.mpa_id, m.mpa_name " +
-                "ORDER BY likes_count DESC " +
+                "ORDER BY f.likes_count DESC, f.film_id " +
                 "LIMIT ?";
-        return jdbcTemplate.query(sql, this::mapRowToFilm, count);
-
+        List<Film> films = jdbcTemplate.query(sql, this::mapRowToFilm, count);
+        loadGenres(films);
+        return films;
     }
 
     private Film mapRowToFilm(ResultSet rs, int rowNum) throws SQLException {
@@ -128,6 +316,7 @@ public class FilmDbStorage implements FilmStorage {
         film.setDescription(rs.getString("description"));
         film.setReleaseDate(rs.getDate("release_date").toLocalDate());
         film.setDuration(rs.getInt("duration"));
+        film.setLikesCount(rs.getInt("likes_count"));
 
         return film;
     }
@@ -141,24 +330,68 @@ public class FilmDbStorage implements FilmStorage {
         jdbcTemplate.batchUpdate(sql, batchArgs);
     }
 
-    private Set<Genre> getGenresByFilmId(int filmId) {
-        String sql = "SELECT g.genre_id, g.genre_name FROM film_genres fg JOIN genres g ON fg.genre_id = g.genre_id WHERE fg.film_id = ?";
-        List<Genre> genres = jdbcTemplate.query(sql, (rs, rowNum) -> {
-            Genre genre = new Genre();
-            genre.setId(rs.getInt("genre_id"));
-            genre.setName(rs.getString("genre_name"));
-            return genre;
-        }, filmId);
-        return new HashSet<>(genres);
+    /**
+     * Загружает жанры для переданных фильмов пакетными запросами {@code IN (...)}
+     * вместо отдельного запроса на каждый фильм.
+     *
+     * @param films фильмы, которым нужно заполнить жанры
+     */
+    private void loadGenres(List<Film> films) {
+        if (films.isEmpty()) {
+            return;
+        }
+        Map<Integer, Film> filmsById = indexById(films);
+        List<Integer> ids = new ArrayList<>(filmsById.keySet());
+        String sql = "SELECT fg.film_id, g.genre_id, g.genre_name " +
+                "FROM film_genres fg JOIN genres g ON fg.genre_id = g.genre_id " +
+                "WHERE fg.film_id IN (:ids)";
+        for (int from = 0; from < ids.size(); from += IN_BATCH_SIZE) {
+            List<Integer> batch = ids.subList(from, Math.min(from + IN_BATCH_SIZE, ids.size()));
+            MapSqlParameterSource parameters = new MapSqlParameterSource("ids", batch);
+            namedParameterJdbcTemplate.query(sql, parameters, genreCollector(filmsById));
+        }
+    }
+
+    private Map<Integer, Film> indexById(List<Film> films) {
+        Map<Integer, Film> filmsById = new LinkedHashMap<>();
+        for (Film film : films) {
+            filmsById.put(film.getId(), film);
+        }
+        return filmsById;
+    }
+
+    private RowCallbackHandler genreCollector(Map<Integer, Film> filmsById) {
+        return rs -> {
+            Film film = filmsById.get(rs.getInt("film_id"));
+            if (film != null) {
+                film.getGenres().add(mapRowToGenre(rs));
+            }
+        };
+    }
+
+    private Genre mapRowToGenre(ResultSet rs) throws SQLException {
+        Genre genre = new Genre();
+        genre.setId(rs.getInt("genre_id"));
+        genre.setName(rs.getString("genre_name"));
+        return genre;
     }
+
     /**
      * Удаляет все фильмы и связанные с ними данные (жанры, лайки).
+     * После фиксации сбрасывает индексы хранилища и публикует {@link FilmsDeletedEvent}
+     * для рейтинга популярности, индекса лайков и кеша фильмов.
      * Используется для сброса состояния базы в тестах.
      */
+    @Transactional
     public void deleteAllFilms() {
         jdbcTemplate.update("DELETE FROM film_genres");
         jdbcTemplate.update("DELETE FROM film_likes");
         jdbcTemplate.update("DELETE FROM films");
+        AfterCommit.run(() -> {
+            filmIds.clear();
+            filmSearchIndex.clear();
+            eventPublisher.publishEvent(new FilmsDeletedEvent());
+        });
         log.info("Все фильмы и связанные записи удалены.");
     }
     /**
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.util.SortedIntSet;
+
+/**
+ * Признаки фильма, по которым фильтруется рейтинг популярности: год выпуска и жанры.
+ *
+ * @param releaseYear год выпуска
+ * @param genreIds    ID жанров
+ */
+public record FilmFacets(int releaseYear, SortedIntSet genreIds) {
+
+    /**
+     * Извлекает признаки из фильма.
+     *
+     * @param film фильм
+     * @return признаки фильма
+     */
+    public static FilmFacets of(Film film) {
+        int[] genreIds = film.getGenres() == null ? new int[0]
+                : film.getGenres().stream().mapToInt(Genre::getId).toArray();
+        return new FilmFacets(film.getReleaseDate().getYear(), SortedIntSet.copyOf(genreIds, genreIds.length));
+    }
+}
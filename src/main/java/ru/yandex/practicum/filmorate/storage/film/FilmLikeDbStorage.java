@@ -1,45 +1,256 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.storage.AfterCommit;
+import ru.yandex.practicum.filmorate.util.SortedIntSetGrouper;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 /**
  * Хранилище для управления лайками фильмов.
- * Работает с таблицей film_likes через JdbcTemplate.
+ * Работает с таблицей film_likes через JdbcTemplate и поддерживает
+ * денормализованный счётчик films.likes_count в той же транзакции.
+ * Изменения лайков дублируются в {@link FilmLikeIndex} после фиксации транзакции.
  */
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class FilmLikeDbStorage {
+    // Количество строк в одном пакете JDBC при массовой вставке лайков.
+    private static final int BATCH_SIZE = 500;
+    private static final String INSERT_LIKE_IF_ABSENT_SQL = "INSERT INTO film_likes (film_id, user_id) " +
+            "SELECT CAST(? AS INT), CAST(? AS INT) " +
+            "WHERE NOT EXISTS (SELECT 1 FROM film_likes WHERE film_id = ? AND user_id = ?)";
+    private static final String DELETE_LIKE_SQL = "DELETE FROM film_likes WHERE film_id = ? AND user_id = ?";
 
     private final JdbcTemplate jdbcTemplate;
+    private final FilmLikeIndex filmLikeIndex;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Загружает все лайки из таблицы film_likes в индекс лайков.
+     */
+    @PostConstruct
+    public void loadLikeIndex() {
+        filmLikeIndex.clear();
+        SortedIntSetGrouper byUser = new SortedIntSetGrouper(
+                (filmIds, userId) -> filmLikeIndex.setUserFilms(userId, filmIds));
+        jdbcTemplate.query("SELECT user_id, film_id FROM film_likes ORDER BY user_id, film_id", rs -> {
+            byUser.add(rs.getInt("user_id"), rs.getInt("film_id"));
+        });
+        byUser.finish();
+        SortedIntSetGrouper byFilm = new SortedIntSetGrouper(
+                (userIds, filmId) -> filmLikeIndex.setFilmUsers(filmId, userIds));
+        jdbcTemplate.query("SELECT film_id, user_id FROM film_likes ORDER BY film_id, user_id", rs -> {
+            byFilm.add(rs.getInt("film_id"), rs.getInt("user_id"));
+        });
+        byFilm.finish();
+        filmLikeIndex.markLoaded();
+    }
+
     /**
      * Добавляет лайк фильму от пользователя.
      *
      * @param filmId ID фильма
      * @param userId ID пользователя
      */
+    @Transactional
     public void addLike(int filmId, int userId) {
         String sql = "INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)";
         jdbcTemplate.update(sql, filmId, userId);
+        jdbcTemplate.update("UPDATE films SET likes_count = likes_count + 1 WHERE film_id = ?", filmId);
+        AfterCommit.run(() -> filmLikeIndex.addLike(filmId, userId));
     }
+    /**
+     * Добавляет лайки пакетными запросами JDBC и обновляет счётчики лайков фильмов.
+     * Уже существующие лайки пропускаются, в том числе добавленные параллельно другим запросом.
+     *
+     * @param likes лайки без повторов
+     * @return признаки добавления для каждого лайка в порядке следования
+     */
+    @Transactional
+    public boolean[] addLikes(List<FilmLike> likes) {
+        boolean[] inserted = new boolean[likes.size()];
+        Map<Integer, Integer> addedByFilm = new HashMap<>();
+        List<FilmLike> addedLikes = new ArrayList<>();
+        for (int from = 0; from < likes.size(); from += BATCH_SIZE) {
+            List<FilmLike> chunk = likes.subList(from, Math.min(from + BATCH_SIZE, likes.size()));
+            int[] counts = updateEach(INSERT_LIKE_IF_ABSENT_SQL, chunk, like ->
+                    new Object[]{like.getFilmId(), like.getUserId(), like.getFilmId(), like.getUserId()});
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    FilmLike like = chunk.get(i);
+                    inserted[from + i] = true;
+                    addedByFilm.merge(like.getFilmId(), 1, Integer::sum);
+                    addedLikes.add(like);
+                }
+            }
+        }
+        List<Object[]> counterArgs = new ArrayList<>(addedByFilm.size());
+        addedByFilm.forEach((filmId, added) -> counterArgs.add(new Object[]{added, filmId}));
+        jdbcTemplate.batchUpdate("UPDATE films SET likes_count = likes_count + ? WHERE film_id = ?", counterArgs);
+        AfterCommit.run(() -> addedLikes.forEach(like -> filmLikeIndex.addLike(like.getFilmId(), like.getUserId())));
+        return inserted;
+    }
+
+    /**
+     * Выполняет запрос для каждого лайка одним пакетом JDBC внутри точки сохранения.
+     * Условие NOT EXISTS при вставке не защищает от параллельной вставки того же лайка: такая вставка нарушает
+     * первичный ключ. Кроме того, драйвер может не сообщить число изменённых строк
+     * ({@link Statement#SUCCESS_NO_INFO}). В обоих случаях пакет откатывается до точки сохранения,
+     * а запрос выполняется для каждого лайка отдельно в своей точке сохранения; конфликт первичного ключа
+     * означает, что лайк уже есть. Откат до точки сохранения нужен, потому что некоторые СУБД (PostgreSQL)
+     * после ошибки запроса отклоняют все последующие запросы транзакции.
+     *
+     * @param sql   запрос на изменение одного лайка
+     * @param likes лайки без повторов, не больше {@link #BATCH_SIZE}
+     * @param args  параметры запроса для лайка
+     * @return число изменённых строк для каждого лайка
+     */
+    private int[] updateEach(String sql, List<FilmLike> likes, Function<FilmLike, Object[]> args) {
+        List<Object[]> batchArgs = likes.stream().map(args).toList();
+        TransactionTemplate savepoint = new TransactionTemplate(transactionManager);
+        savepoint.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        try {
+            int[] counts = savepoint.execute(status -> {
+                int[] batch = jdbcTemplate.batchUpdate(sql, batchArgs);
+                if (Arrays.stream(batch).anyMatch(count -> count == Statement.SUCCESS_NO_INFO)) {
+                    status.setRollbackOnly();
+                    return null;
+                }
+                return batch;
+            });
+            if (counts != null) {
+                return counts;
+            }
+        } catch (DuplicateKeyException e) {
+            log.debug("Пакет лайков конфликтует с параллельным запросом, лайки будут записаны по одному");
+        }
+        int[] counts = new int[batchArgs.size()];
+        for (int i = 0; i < batchArgs.size(); i++) {
+            Object[] rowArgs = batchArgs.get(i);
+            try {
+                counts[i] = savepoint.execute(status -> jdbcTemplate.update(sql, rowArgs));
+            } catch (DuplicateKeyException e) {
+                counts[i] = 0;
+            }
+        }
+        return counts;
+    }
+
     /**
      * Удаляет лайк пользователя у фильма.
      *
      * @param filmId ID фильма
      * @param userId ID пользователя
+     * @return {@code true}, если лайк был удалён
      */
-    public void removeLike(int filmId, int userId) {
+    @Transactional
+    public boolean removeLike(int filmId, int userId) {
         String sql = "DELETE FROM film_likes WHERE film_id = ? AND user_id = ?";
-        jdbcTemplate.update(sql, filmId, userId);
+        if (jdbcTemplate.update(sql, filmId, userId) == 0) {
+            return false;
+        }
+        jdbcTemplate.update("UPDATE films SET likes_count = likes_count - 1 WHERE film_id = ?", filmId);
+        AfterCommit.run(() -> filmLikeIndex.removeLike(filmId, userId));
+        return true;
+    }
+    /**
+     * Удаляет лайки пакетными запросами JDBC и обновляет счётчики лайков фильмов.
+     * Отсутствующие лайки пропускаются.
+     *
+     * @param likes лайки без повторов
+     */
+    @Transactional
+    public void removeLikes(List<FilmLike> likes) {
+        Map<Integer, Integer> removedByFilm = new HashMap<>();
+        List<FilmLike> removedLikes = new ArrayList<>();
+        for (int from = 0; from < likes.size(); from += BATCH_SIZE) {
+            List<FilmLike> chunk = likes.subList(from, Math.min(from + BATCH_SIZE, likes.size()));
+            int[] counts = updateEach(DELETE_LIKE_SQL, chunk, like -> new Object[]{like.getFilmId(), like.getUserId()});
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    FilmLike like = chunk.get(i);
+                    removedByFilm.merge(like.getFilmId(), 1, Integer::sum);
+                    removedLikes.add(like);
+                }
+            }
+        }
+        List<Object[]> counterArgs = new ArrayList<>(removedByFilm.size());
+        removedByFilm.forEach((filmId, removed) -> counterArgs.add(new Object[]{removed, filmId}));
+        jdbcTemplate.batchUpdate("UPDATE films SET likes_count = likes_count - ? WHERE film_id = ?", counterArgs);
+        AfterCommit.run(() -> removedLikes.forEach(
+                like -> filmLikeIndex.removeLike(like.getFilmId(), like.getUserId())));
+    }
+
+    /**
+     * Добавляет и удаляет лайки пакетами в одной транзакции: при ошибке не записывается ни одно изменение.
+     *
+     * @param likes   добавляемые лайки без повторов
+     * @param unlikes удаляемые лайки без повторов
+     */
+    @Transactional
+    public void applyLikes(List<FilmLike> likes, List<FilmLike> unlikes) {
+        if (!likes.isEmpty()) {
+            addLikes(likes);
+        }
+        if (!unlikes.isEmpty()) {
+            removeLikes(unlikes);
+        }
     }
+
+    /**
+     * Проверяет, поставил ли пользователь лайк фильму.
+     *
+     * @param filmId ID фильма
+     * @param userId ID пользователя
+     * @return {@code true}, если лайк существует
+     */
+    public boolean hasLike(int filmId, int userId) {
+        String sql = "SELECT EXISTS (SELECT 1 FROM film_likes WHERE film_id = ? AND user_id = ?)";
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, Boolean.class, filmId, userId));
+    }
+
     /**
      * Возвращает общее количество лайков у фильма.
      *
      * @param filmId ID фильма
-     * @return количество лайков
+     * @return количество лайков или 0, если фильм не найден
      */
     public int getFilmLikes(int filmId) {
-        String sql = "SELECT COUNT(user_id) FROM film_likes WHERE film_id = ?";
-        return jdbcTemplate.queryForObject(sql, Integer.class, filmId);
+        String sql = "SELECT likes_count FROM films WHERE film_id = ?";
+        List<Integer> counts = jdbcTemplate.queryForList(sql, Integer.class, filmId);
+        return counts.isEmpty() ? 0 : counts.get(0);
+    }
+    /**
+     * Возвращает количество лайков каждого фильма, подсчитанное по таблице film_likes.
+     * Фильмы без лайков также включаются в результат.
+     *
+     * @return отображение ID фильма в количество лайков
+     */
+    public Map<Integer, Integer> getLikeCounts() {
+        String sql = "SELECT f.film_id, COUNT(fl.user_id) AS likes_count " +
+                "FROM films f LEFT JOIN film_likes fl ON f.film_id = fl.film_id " +
+                "GROUP BY f.film_id";
+        Map<Integer, Integer> counts = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            counts.put(rs.getInt("film_id"), rs.getInt("likes_count"));
+        });
+        return counts;
     }
 }
@@ -0,0 +1,242 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.user.UsersDeletedEvent;
+import ru.yandex.practicum.filmorate.util.IntCounter;
+import ru.yandex.practicum.filmorate.util.IntHashSet;
+import ru.yandex.practicum.filmorate.util.IntTopK;
+import ru.yandex.practicum.filmorate.util.SortedIntSet;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Разреженный индекс лайков в памяти приложения: для каждого пользователя хранится отсортированный
+ * массив ID понравившихся фильмов, для каждого фильма — множество ID поставивших лайк пользователей.
+ * Массивы пользователей неизменяемы и заменяются целиком при изменении (copy-on-write): у пользователя
+ * немного лайков. У популярного фильма лайкнувших может быть очень много, поэтому их множество изменяется
+ * на месте под блокировкой полосы, в которую попадает ID фильма.
+ * Заполняется и поддерживается в актуальном состоянии {@link FilmLikeDbStorage}.
+ */
+@Component
+public class FilmLikeIndex {
+    // Количество наиболее похожих пользователей, чьи лайки участвуют в рекомендациях.
+    private static final int NEIGHBOURS = 50;
+    // Количество полос блокировок множеств лайкнувших фильм, степень двойки.
+    private static final int LOCK_STRIPES = 64;
+
+    private final Map<Integer, SortedIntSet> filmsByUser = new ConcurrentHashMap<>();
+    private final Map<Integer, IntHashSet> usersByFilm = new ConcurrentHashMap<>();
+    private final Lock[] stripes = new Lock[LOCK_STRIPES];
+    private volatile boolean loaded;
+
+    public FilmLikeIndex() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Устанавливает список фильмов, которым пользователь поставил лайк.
+     *
+     * @param userId  ID пользователя
+     * @param filmIds ID фильмов
+     */
+    public void setUserFilms(int userId, SortedIntSet filmIds) {
+        put(filmsByUser, userId, filmIds);
+    }
+
+    /**
+     * Устанавливает список пользователей, поставивших лайк фильму.
+     *
+     * @param filmId  ID фильма
+     * @param userIds ID пользователей
+     */
+    public void setFilmUsers(int filmId, SortedIntSet userIds) {
+        Lock lock = stripe(filmId);
+        lock.lock();
+        try {
+            if (userIds.isEmpty()) {
+                usersByFilm.remove(filmId);
+            } else {
+                usersByFilm.put(filmId, IntHashSet.copyOf(userIds));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Добавляет лайк в индекс.
+     *
+     * @param filmId ID фильма
+     * @param userId ID пользователя
+     */
+    public void addLike(int filmId, int userId) {
+        filmsByUser.compute(userId, (id, films) -> (films == null ? SortedIntSet.empty() : films).with(filmId));
+        Lock lock = stripe(filmId);
+        lock.lock();
+        try {
+            usersByFilm.computeIfAbsent(filmId, id -> new IntHashSet(4)).add(userId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Удаляет лайк из индекса.
+     *
+     * @param filmId ID фильма
+     * @param userId ID пользователя
+     */
+    public void removeLike(int filmId, int userId) {
+        filmsByUser.computeIfPresent(userId, (id, films) -> nullIfEmpty(films.without(filmId)));
+        Lock lock = stripe(filmId);
+        lock.lock();
+        try {
+            IntHashSet users = usersByFilm.get(filmId);
+            if (users != null && users.remove(userId) && users.isEmpty()) {
+                usersByFilm.remove(filmId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Проверяет, поставил ли пользователь лайк фильму.
+     *
+     * @param filmId ID фильма
+     * @param userId ID пользователя
+     * @return {@code true}, если лайк есть в индексе
+     */
+    public boolean hasLike(int filmId, int userId) {
+        return getFilmIds(userId).contains(filmId);
+    }
+
+    /**
+     * Возвращает ID фильмов, которым пользователь поставил лайк.
+     *
+     * @param userId ID пользователя
+     * @return множество ID фильмов
+     */
+    public SortedIntSet getFilmIds(int userId) {
+        return filmsByUser.getOrDefault(userId, SortedIntSet.empty());
+    }
+
+    /**
+     * Возвращает ID рекомендуемых пользователю фильмов.
+     * Сначала находятся пользователи с наибольшим числом общих лайков, затем их фильмы, которые
+     * пользователь ещё не оценил, ранжируются по сумме количества общих лайков с теми, кто их оценил.
+     * Подсчёт выполняется в примитивных хеш-таблицах, обходятся только лайки затронутых фильмов и пользователей.
+     *
+     * @param userId ID пользователя
+     * @param limit  максимальное количество рекомендаций
+     * @return ID фильмов по убыванию оценки, при равенстве — по возрастанию ID
+     */
+    public int[] recommendFilms(int userId, int limit) {
+        SortedIntSet liked = getFilmIds(userId);
+        if (liked.isEmpty() || limit <= 0) {
+            return new int[0];
+        }
+        IntCounter overlaps = new IntCounter(liked.size() * 4);
+        liked.forEachInt(filmId -> {
+            Lock lock = stripe(filmId);
+            lock.lock();
+            try {
+                IntHashSet users = usersByFilm.get(filmId);
+                if (users != null) {
+                    users.forEachInt(otherId -> {
+                        if (otherId != userId) {
+                            overlaps.increment(otherId);
+                        }
+                    });
+                }
+            } finally {
+                lock.unlock();
+            }
+        });
+        IntTopK neighbours = new IntTopK(NEIGHBOURS);
+        overlaps.forEach((otherId, overlap) -> neighbours.offer(overlap, otherId));
+
+        IntCounter scores = new IntCounter(limit * 4);
+        for (int otherId : neighbours.toSortedIds()) {
+            int weight = overlaps.get(otherId);
+            getFilmIds(otherId).forEachInt(filmId -> {
+                if (!liked.contains(filmId)) {
+                    scores.add(filmId, weight);
+                }
+            });
+        }
+        IntTopK top = new IntTopK(limit);
+        scores.forEach((filmId, score) -> top.offer(score, filmId));
+        return top.toSortedIds();
+    }
+
+    /**
+     * Удаляет все лайки из индекса. До вызова {@link #markLoaded()} индекс считается незагруженным.
+     */
+    public void clear() {
+        loaded = false;
+        filmsByUser.clear();
+        usersByFilm.clear();
+    }
+
+    /**
+     * Очищает индекс после удаления всех фильмов: вместе с фильмами удалены и их лайки,
+     * поэтому пустой индекс остаётся загруженным.
+     *
+     * @param event событие удаления фильмов
+     */
+    @EventListener
+    public void onFilmsDeleted(FilmsDeletedEvent event) {
+        clear();
+        markLoaded();
+    }
+
+    /**
+     * Очищает индекс после удаления всех пользователей вместе с их лайками.
+     *
+     * @param event событие удаления пользователей
+     */
+    @EventListener
+    public void onUsersDeleted(UsersDeletedEvent event) {
+        clear();
+        markLoaded();
+    }
+
+    /**
+     * Отмечает, что индекс полностью загружен из БД.
+     */
+    public void markLoaded() {
+        loaded = true;
+    }
+
+    /**
+     * Показывает, загружен ли индекс и можно ли отвечать по нему вместо запроса к БД.
+     *
+     * @return {@code true}, если индекс загружен
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    private Lock stripe(int filmId) {
+        return stripes[filmId & (LOCK_STRIPES - 1)];
+    }
+
+    private static void put(Map<Integer, SortedIntSet> index, int key, SortedIntSet values) {
+        if (values.isEmpty()) {
+            index.remove(key);
+        } else {
+            index.put(key, values);
+        }
+    }
+
+    private static SortedIntSet nullIfEmpty(SortedIntSet values) {
+        return values.isEmpty() ? null : values;
+    }
+}
@@ -0,0 +1,443 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.util.IntHashSet;
+import ru.yandex.practicum.filmorate.util.IntTopK;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
+import java.util.function.UnaryOperator;
+
+/**
+ * Инвертированный индекс названий и описаний фильмов для полнотекстового поиска.
+ * Для каждого слова хранится изменяемое множество ID фильмов, в которых оно встречается, и отдельно —
+ * фильмов, в названии которых оно встречается, поэтому добавление фильма не копирует списки частых слов.
+ * Слова упорядочены, что позволяет искать по префиксу. Заполняется и поддерживается в актуальном
+ * состоянии {@link FilmDbStorage}.
+ * <p>
+ * Поиск выполняется под блокировкой чтения, изменения отдельных фильмов — под блокировкой записи,
+ * поэтому поиск видит фильм либо целиком со старыми словами, либо целиком с новыми. Полная перезагрузка
+ * ({@link Loader}) строит новый снимок без блокировки и заменяет им текущий под блокировкой записи;
+ * изменения, сделанные во время перезагрузки, переносятся в новый снимок.
+ * <p>
+ * Фильм находится, если он содержит все слова запроса, последнее слово запроса ищется как префикс.
+ * Выше ранжируются фильмы, в названии которых встречается больше слов запроса, затем — содержащие
+ * последнее слово целиком, при равенстве — более популярные, затем — с меньшим ID.
+ */
+@Component
+public class FilmSearchIndex {
+    // Оценка упаковывается в int: старшие биты — релевантность, младшие — количество лайков.
+    private static final int POPULARITY_BITS = 24;
+    private static final int MAX_POPULARITY = (1 << POPULARITY_BITS) - 1;
+    private static final int MAX_RELEVANCE = (1 << (Integer.SIZE - 1 - POPULARITY_BITS)) - 1;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+    // Загрузчики, которые строят индекс в данный момент; брошенные загрузчики удаляются сборщиком мусора.
+    // Загрузчики и снимок защищены блокировкой.
+    private final Set<Loader> loaders = Collections.newSetFromMap(new WeakHashMap<>());
+    private Snapshot snapshot = Snapshot.empty();
+
+    /**
+     * Разбивает текст на слова: последовательности букв и цифр в нижнем регистре, буква «ё» заменяется на «е».
+     * Регистр понижается независимо от локали, поэтому одинаково обрабатываются кириллица и латиница.
+     *
+     * @param text исходный текст, может быть {@code null}
+     * @return уникальные слова в порядке первого появления
+     */
+    public static List<String> tokenize(String text) {
+        if (text == null) {
+            return new ArrayList<>();
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                char lower = Character.toLowerCase(c);
+                token.append(lower == 'ё' ? 'е' : lower);
+            } else if (!token.isEmpty()) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (!token.isEmpty()) {
+            tokens.add(token.toString());
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    /**
+     * Добавляет фильм в индекс или заменяет его ранее проиндексированный текст.
+     *
+     * @param filmId      ID фильма
+     * @param name        название
+     * @param description описание
+     */
+    public void index(int filmId, String name, String description) {
+        writeLock.lock();
+        try {
+            Snapshot current = snapshot;
+            apply(current, filmId, FilmTokens.of(tokenize(name), tokenize(description), current::canonical));
+            loaders.forEach(loader -> loader.touched.add(filmId));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Удаляет фильм из индекса.
+     *
+     * @param filmId ID фильма
+     */
+    public void remove(int filmId) {
+        writeLock.lock();
+        try {
+            apply(snapshot, filmId, null);
+            loaders.forEach(loader -> loader.touched.add(filmId));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Очищает индекс. Индекс, строящийся в этот момент загрузчиком, не заменит очищенный.
+     */
+    public void clear() {
+        writeLock.lock();
+        try {
+            snapshot = Snapshot.empty();
+            loaders.forEach(loader -> loader.cleared = true);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Создаёт загрузчик, который строит индекс целиком и заменяет им текущий.
+     * Фильмы должны передаваться загрузчику в порядке возрастания ID.
+     *
+     * @return загрузчик индекса
+     */
+    public Loader loader() {
+        Loader loader = new Loader();
+        writeLock.lock();
+        try {
+            loaders.add(loader);
+        } finally {
+            writeLock.unlock();
+        }
+        return loader;
+    }
+
+    /**
+     * Количество проиндексированных фильмов.
+     *
+     * @return количество фильмов
+     */
+    public int size() {
+        readLock.lock();
+        try {
+            return snapshot.tokensByFilm().size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Ищет фильмы по запросу.
+     * Релевантность кандидатов вычисляется по битовым картам без обращения к словам фильма; популярность
+     * запрашивается только у кандидатов с релевантностью, достаточной для попадания в результат.
+     *
+     * @param query      текст запроса
+     * @param limit      максимальное количество фильмов
+     * @param popularity количество лайков фильма по его ID
+     * @return ID найденных фильмов в порядке ранжирования
+     */
+    public int[] search(String query, int limit, IntUnaryOperator popularity) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return new int[0];
+        }
+        readLock.lock();
+        try {
+            return search(snapshot, terms, limit, popularity);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private static int[] search(Snapshot current, List<String> terms, int limit, IntUnaryOperator popularity) {
+        List<String> exactTerms = terms.subList(0, terms.size() - 1);
+        String prefix = terms.get(terms.size() - 1);
+        BitSet prefixMatches = prefixUnion(current.postings(), prefix);
+        if (prefixMatches.isEmpty()) {
+            return new int[0];
+        }
+        Candidates candidates = exactTerms.isEmpty()
+                ? action -> {
+                    for (int id = prefixMatches.nextSetBit(0); id >= 0; id = prefixMatches.nextSetBit(id + 1)) {
+                        action.accept(id);
+                    }
+                }
+                : intersectExact(current, exactTerms, prefixMatches);
+        Relevance relevance = relevance(current, exactTerms, prefix);
+
+        int[] countByRelevance = new int[MAX_RELEVANCE + 1];
+        candidates.forEach(filmId -> countByRelevance[relevance.of(filmId)]++);
+        int threshold = MAX_RELEVANCE;
+        for (int found = countByRelevance[threshold]; found < limit && threshold > 0; ) {
+            found += countByRelevance[--threshold];
+        }
+
+        int minRelevance = threshold;
+        IntTopK top = new IntTopK(limit);
+        candidates.forEach(filmId -> {
+            int score = relevance.of(filmId);
+            if (score >= minRelevance) {
+                int likes = Math.max(0, Math.min(popularity.applyAsInt(filmId), MAX_POPULARITY));
+                top.offer(score << POPULARITY_BITS | likes, filmId);
+            }
+        });
+        return top.toSortedIds();
+    }
+
+    // Перебирает самый короткий список и проверяет принадлежность фильма остальным.
+    private static Candidates intersectExact(Snapshot current, List<String> terms, BitSet prefixMatches) {
+        List<IntHashSet> sets = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            IntHashSet films = current.postings().get(term);
+            if (films == null) {
+                return action -> {
+                };
+            }
+            sets.add(films);
+        }
+        sets.sort(Comparator.comparingInt(IntHashSet::size));
+        IntHashSet smallest = sets.get(0);
+        List<IntHashSet> others = sets.subList(1, sets.size());
+        return action -> smallest.forEachInt(filmId -> {
+            if (!prefixMatches.get(filmId)) {
+                return;
+            }
+            for (IntHashSet films : others) {
+                if (!films.contains(filmId)) {
+                    return;
+                }
+            }
+            action.accept(filmId);
+        });
+    }
+
+    private static Relevance relevance(Snapshot current, List<String> exactTerms, String prefix) {
+        BitSet titlePrefix = prefixUnion(current.titlePostings(), prefix);
+        BitSet wholeWord = new BitSet();
+        IntHashSet exact = current.postings().get(prefix);
+        if (exact != null) {
+            exact.forEachInt(wholeWord::set);
+        }
+        List<IntHashSet> titleExact = new ArrayList<>();
+        for (String term : exactTerms) {
+            IntHashSet films = current.titlePostings().get(term);
+            if (films != null) {
+                titleExact.add(films);
+            }
+        }
+        return filmId -> {
+            int score = titlePrefix.get(filmId) ? 2 : 0;
+            for (IntHashSet films : titleExact) {
+                if (films.contains(filmId)) {
+                    score += 2;
+                }
+            }
+            if (wholeWord.get(filmId)) {
+                score++;
+            }
+            return Math.min(score, MAX_RELEVANCE);
+        };
+    }
+
+    private static BitSet prefixUnion(NavigableMap<String, IntHashSet> index, String prefix) {
+        BitSet union = new BitSet();
+        for (IntHashSet films : index.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            films.forEachInt(union::set);
+        }
+        return union;
+    }
+
+    // Заменяет слова фильма в снимке; tokens == null удаляет фильм.
+    private static void apply(Snapshot target, int filmId, FilmTokens tokens) {
+        FilmTokens old = target.tokensByFilm().getOrDefault(filmId, FilmTokens.EMPTY);
+        FilmTokens updated = tokens == null ? FilmTokens.EMPTY : tokens;
+        replacePostings(target.postings(), filmId, old.all(), updated.all());
+        replacePostings(target.titlePostings(), filmId, old.title(), updated.title());
+        if (tokens == null) {
+            target.tokensByFilm().remove(filmId);
+        } else {
+            target.tokensByFilm().put(filmId, tokens);
+        }
+    }
+
+    private static void replacePostings(NavigableMap<String, IntHashSet> index, int filmId,
+                                        List<String> oldTokens, List<String> newTokens) {
+        Set<String> removed = new HashSet<>(oldTokens);
+        for (String token : newTokens) {
+            if (!removed.remove(token)) {
+                index.computeIfAbsent(token, t -> new IntHashSet(1)).add(filmId);
+            }
+        }
+        for (String token : removed) {
+            IntHashSet films = index.get(token);
+            if (films != null && films.remove(filmId) && films.isEmpty()) {
+                index.remove(token);
+            }
+        }
+    }
+
+    /**
+     * Построение индекса целиком по фильмам, переданным в порядке возрастания ID.
+     */
+    public final class Loader {
+        private final Map<String, PostingBuilder> builders = new HashMap<>();
+        private final Map<String, PostingBuilder> titleBuilders = new HashMap<>();
+        private final Map<Integer, FilmTokens> tokens = new HashMap<>();
+        // Фильмы, изменённые во время построения, и признак очистки индекса; защищены writeLock.
+        private final Set<Integer> touched = new HashSet<>();
+        private boolean cleared;
+
+        private Loader() {
+        }
+
+        /**
+         * Добавляет фильм в строящийся индекс.
+         *
+         * @param filmId      ID фильма
+         * @param name        название
+         * @param description описание
+         */
+        public void add(int filmId, String name, String description) {
+            FilmTokens filmTokens = FilmTokens.of(tokenize(name), tokenize(description),
+                    token -> builders.computeIfAbsent(token, PostingBuilder::new).token);
+            for (String token : filmTokens.all()) {
+                builders.get(token).add(filmId);
+            }
+            for (String token : filmTokens.title()) {
+                titleBuilders.computeIfAbsent(token, PostingBuilder::new).add(filmId);
+            }
+            tokens.put(filmId, filmTokens);
+        }
+
+        /**
+         * Заменяет текущий индекс построенным. Фильмы, изменённые или удалённые во время построения,
+         * переносятся в новый индекс в текущем состоянии. Если индекс был очищен во время построения,
+         * построенный индекс отбрасывается.
+         */
+        public void finish() {
+            Snapshot built = new Snapshot(new TreeMap<>(), new TreeMap<>(), new HashMap<>(tokens));
+            builders.forEach((token, builder) -> built.postings().put(token, builder.build()));
+            titleBuilders.forEach((token, builder) -> built.titlePostings().put(token, builder.build()));
+            writeLock.lock();
+            try {
+                loaders.remove(this);
+                if (cleared) {
+                    return;
+                }
+                Snapshot live = snapshot;
+                for (int filmId : touched) {
+                    apply(built, filmId, live.tokensByFilm().get(filmId));
+                }
+                snapshot = built;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Состояние индекса: списки фильмов по словам, по словам названия и слова каждого фильма.
+     */
+    private record Snapshot(NavigableMap<String, IntHashSet> postings,
+                            NavigableMap<String, IntHashSet> titlePostings,
+                            Map<Integer, FilmTokens> tokensByFilm) {
+        static Snapshot empty() {
+            return new Snapshot(new TreeMap<>(), new TreeMap<>(), new HashMap<>());
+        }
+
+        // Повторно использует уже хранящийся в индексе экземпляр строки, чтобы не дублировать слова в памяти.
+        String canonical(String token) {
+            String existing = postings.ceilingKey(token);
+            return token.equals(existing) ? existing : token;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Candidates {
+        void forEach(IntConsumer action);
+    }
+
+    @FunctionalInterface
+    private interface Relevance {
+        int of(int filmId);
+    }
+
+    private static final class PostingBuilder {
+        private final String token;
+        private final IntHashSet films = new IntHashSet(4);
+
+        private PostingBuilder(String token) {
+            this.token = token;
+        }
+
+        private void add(int id) {
+            films.add(id);
+        }
+
+        private IntHashSet build() {
+            return films;
+        }
+    }
+
+    /**
+     * Слова фильма: сначала слова названия, затем не встречающиеся в названии слова описания.
+     */
+    private record FilmTokens(String[] tokens, int titleTokens) {
+        static final FilmTokens EMPTY = new FilmTokens(new String[0], 0);
+
+        static FilmTokens of(List<String> name, List<String> description, UnaryOperator<String> canonical) {
+            Set<String> all = new LinkedHashSet<>(name);
+            all.addAll(description);
+            String[] tokens = new String[all.size()];
+            int i = 0;
+            for (String token : all) {
+                tokens[i++] = canonical.apply(token);
+            }
+            return new FilmTokens(tokens, name.size());
+        }
+
+        List<String> all() {
+            return Arrays.asList(tokens);
+        }
+
+        List<String> title() {
+            return Arrays.asList(tokens).subList(0, titleTokens);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import ru.yandex.practicum.filmorate.model.Film;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 /**
  * Интерфейс хранилища фильмов.
  * Определяет базовые операции добавления, обновления и получения фильмов.
@@ -30,12 +31,41 @@ public interface FilmStorage {
      * @return Optional с фильмом, если найден
      */
     Optional<Film> getFilmById(int id);
+    /**
+     * Проверяет существование фильма без загрузки его данных.
+     *
+     * @param id ID фильма
+     * @return {@code true}, если фильм существует
+     */
+    boolean existsById(int id);
+    /**
+     * Возвращает фильмы по списку ID в порядке следования ID.
+     * Отсутствующие в хранилище ID пропускаются.
+     *
+     * @param ids список ID фильмов
+     * @return список найденных фильмов
+     */
+    List<Film> getFilmsByIds(List<Integer> ids);
     /**
      * Возвращает список всех фильмов.
      *
      * @return список фильмов
      */
     List<Film> getAllFilms();
+    /**
+     * Возвращает страницу фильмов с ID больше указанного, упорядоченную по ID.
+     *
+     * @param afterId ID, после которого начинается страница (курсор)
+     * @param limit   максимальный размер страницы
+     * @return страница фильмов
+     */
+    List<Film> getFilmsPage(int afterId, int limit);
+    /**
+     * Последовательно передаёт все фильмы обработчику, не накапливая их в памяти.
+     *
+     * @param consumer обработчик фильмов
+     */
+    void streamAllFilms(Consumer<Film> consumer);
     /**
      * Возвращает список самых популярных фильмов.
      *
@@ -0,0 +1,9 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+/**
+ * Событие удаления всех фильмов вместе с их жанрами и лайками.
+ * Публикуется {@link FilmDbStorage} после фиксации удаления, чтобы индексы и кеши в памяти,
+ * которые хранилище не может сбросить само, очистили свои записи.
+ */
+public record FilmsDeletedEvent() {
+}
@@ -0,0 +1,295 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Буфер отложенной записи лайков (write-behind).
+ * <p>
+ * Лайки и их отмены накапливаются в памяти и записываются в БД пакетами через заданный интервал.
+ * Для каждой пары фильм-пользователь хранится только итоговое изменение: противоположные операции
+ * над одной парой взаимно сокращаются. Операция принимается, только если она меняет текущее состояние
+ * пары с учётом ещё не записанных изменений, поэтому сокращение всегда корректно.
+ * <p>
+ * Сохранённое состояние пары берётся из {@link FilmLikeIndex}, а пока индекс не загружен, — из БД.
+ * Все изменения одной записи фиксируются в одной транзакции, поэтому при ошибке они целиком
+ * возвращаются в буфер.
+ * <p>
+ * При остановке приложения буфер записывается полностью. При аварийном завершении процесса
+ * теряются изменения не более чем за один интервал записи.
+ */
+@Component
+@Slf4j
+public class LikeWriteBuffer {
+    private static final int LOCK_STRIPES = 64;
+
+    private final FilmLikeDbStorage filmLikeDbStorage;
+    private final FilmLikeIndex filmLikeIndex;
+    private final boolean enabled;
+    private final Duration flushInterval;
+    private final int maxPending;
+    // Ещё не записанные изменения: true — лайк, false — отмена лайка.
+    private final Map<Long, Boolean> pending = new ConcurrentHashMap<>();
+    // Изменения, которые записываются в БД прямо сейчас.
+    private final Map<Long, Boolean> inFlight = new ConcurrentHashMap<>();
+    private final Lock[] stripes = new Lock[LOCK_STRIPES];
+    private final Lock flushLock = new ReentrantLock();
+    // Запись из-за переполнения буфера уже поставлена в очередь фонового потока.
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private ScheduledExecutorService scheduler;
+
+    public LikeWriteBuffer(FilmLikeDbStorage filmLikeDbStorage,
+                           FilmLikeIndex filmLikeIndex,
+                           @Value("${filmorate.likes.write-behind.enabled:false}") boolean enabled,
+                           @Value("${filmorate.likes.write-behind.flush-interval:200ms}") Duration flushInterval,
+                           @Value("${filmorate.likes.write-behind.max-pending:100000}") int maxPending) {
+        this.filmLikeDbStorage = filmLikeDbStorage;
+        this.filmLikeIndex = filmLikeIndex;
+        this.enabled = enabled;
+        this.flushInterval = flushInterval;
+        this.maxPending = maxPending;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "like-write-buffer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Отложенная запись лайков включена, интервал {}", flushInterval);
+    }
+
+    /**
+     * Останавливает фоновую запись и записывает все накопленные изменения.
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        scheduler.awaitTermination(flushInterval.toMillis() * 10, TimeUnit.MILLISECONDS);
+        flush();
+        log.info("Буфер лайков записан при остановке");
+    }
+
+    /**
+     * Показывает, включён ли режим отложенной записи.
+     *
+     * @return {@code true}, если лайки должны проходить через буфер
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Ставит лайк, если пользователь ещё не лайкнул фильм.
+     *
+     * @param filmId ID фильма
+     * @param userId ID пользователя
+     * @return {@code true}, если состояние изменилось
+     */
+    public boolean like(int filmId, int userId) {
+        return change(filmId, userId, true);
+    }
+
+    /**
+     * Снимает лайк, если он был поставлен.
+     *
+     * @param filmId ID фильма
+     * @param userId ID пользователя
+     * @return {@code true}, если состояние изменилось
+     */
+    public boolean unlike(int filmId, int userId) {
+        return change(filmId, userId, false);
+    }
+
+    /**
+     * Проверяет наличие лайка с учётом ещё не записанных изменений.
+     *
+     * @param filmId ID фильма
+     * @param userId ID пользователя
+     * @return {@code true}, если лайк поставлен
+     */
+    public boolean hasLike(int filmId, int userId) {
+        long key = key(filmId, userId);
+        Boolean state = pending.get(key);
+        return state != null ? state : persistedState(key, filmId, userId);
+    }
+
+    /**
+     * Возвращает количество ещё не записанных изменений.
+     *
+     * @return количество пар фильм-пользователь в буфере
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Записывает накопленные изменения в БД пакетами.
+     * Одновременно выполняется не более одной записи.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<FilmLike> likes = new ArrayList<>();
+            List<FilmLike> unlikes = new ArrayList<>();
+            for (Long key : pending.keySet()) {
+                Lock lock = stripe(key);
+                lock.lock();
+                try {
+                    Boolean state = pending.remove(key);
+                    if (state != null) {
+                        inFlight.put(key, state);
+                        (state ? likes : unlikes).add(new FilmLike(filmId(key), userId(key)));
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            if (inFlight.isEmpty()) {
+                return;
+            }
+            try {
+                filmLikeDbStorage.applyLikes(likes, unlikes);
+                log.debug("Записано лайков: {}, отмен: {}", likes.size(), unlikes.size());
+                completeInFlight(false);
+            } catch (RuntimeException e) {
+                completeInFlight(true);
+                throw e;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private boolean change(int filmId, int userId, boolean like) {
+        long key = key(filmId, userId);
+        boolean changed;
+        Lock lock = stripe(key);
+        lock.lock();
+        try {
+            Boolean state = pending.get(key);
+            boolean liked = state != null ? state : persistedState(key, filmId, userId);
+            changed = liked != like;
+            if (changed) {
+                if (state == null) {
+                    pending.put(key, like);
+                } else {
+                    // Противоположная операция отменяет ещё не записанное изменение.
+                    pending.remove(key);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (changed && pending.size() >= maxPending) {
+            requestFlush();
+        }
+        return changed;
+    }
+
+    /**
+     * Ставит внеочередную запись в фоновый поток. Изменение к этому моменту уже принято,
+     * поэтому ошибка записи не возвращается клиенту, а изменения остаются в буфере до следующей записи.
+     */
+    private void requestFlush() {
+        if (scheduler == null || !flushRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            scheduler.execute(() -> {
+                flushRequested.set(false);
+                flushQuietly();
+            });
+        } catch (RejectedExecutionException e) {
+            // Приложение останавливается, буфер будет записан в stop().
+            flushRequested.set(false);
+        }
+    }
+
+    private boolean persistedState(long key, int filmId, int userId) {
+        Boolean state = inFlight.get(key);
+        if (state != null) {
+            return state;
+        }
+        // Индекс обновляется после фиксации записи, до того как изменения уходят из inFlight.
+        return filmLikeIndex.isLoaded() ? filmLikeIndex.hasLike(filmId, userId)
+                : filmLikeDbStorage.hasLike(filmId, userId);
+    }
+
+    /**
+     * Завершает запись: при успехе изменения уже в БД, при ошибке транзакция откатана целиком
+     * и изменения возвращаются в буфер.
+     * Если за время записи пришла противоположная операция, при ошибке они взаимно сокращаются.
+     */
+    private void completeInFlight(boolean failed) {
+        for (Long key : new ArrayList<>(inFlight.keySet())) {
+            Lock lock = stripe(key);
+            lock.lock();
+            try {
+                Boolean state = inFlight.remove(key);
+                if (failed && state != null) {
+                    if (pending.containsKey(key)) {
+                        pending.remove(key);
+                    } else {
+                        pending.put(key, state);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Ошибка записи буфера лайков, изменения будут записаны повторно", e);
+        }
+    }
+
+    private Lock stripe(long key) {
+        return stripes[(int) ((key ^ (key >>> 32)) & (LOCK_STRIPES - 1))];
+    }
+
+    private static long key(int filmId, int userId) {
+        return ((long) filmId << 32) | (userId & 0xFFFFFFFFL);
+    }
+
+    private static int filmId(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int userId(long key) {
+        return (int) key;
+    }
+}
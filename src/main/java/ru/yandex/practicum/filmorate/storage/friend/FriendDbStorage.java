@@ -1,24 +1,52 @@
 package ru.yandex.practicum.filmorate.storage.friend;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.util.SortedIntSet;
+import ru.yandex.practicum.filmorate.util.SortedIntSetGrouper;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 /**
  * Реализация {@link FriendStorage} для работы с друзьями пользователей.
  * Осуществляет добавление, удаление, получение друзей и общих друзей через JdbcTemplate.
+ * Связи дублируются в {@link FriendGraph}, по которому общие друзья вычисляются без соединения таблиц.
  */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class FriendDbStorage implements FriendStorage {
+    // Максимальное количество ID в одном условии IN.
+    private static final int IN_BATCH_SIZE = 1000;
 
     private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final FriendGraph friendGraph;
+
+    /**
+     * Загружает все связи из таблицы friends в граф дружбы.
+     */
+    @PostConstruct
+    public void loadFriendGraph() {
+        friendGraph.clear();
+        SortedIntSetGrouper grouper = new SortedIntSetGrouper(
+                (friendIds, userId) -> friendGraph.setFriends(userId, friendIds));
+        jdbcTemplate.query("SELECT user_id, friend_id FROM friends ORDER BY user_id, friend_id", rs -> {
+            grouper.add(rs.getInt("user_id"), rs.getInt("friend_id"));
+        });
+        grouper.finish();
+    }
     /**
      * Добавляет друга пользователю.
      *
@@ -27,9 +55,10 @@ public class FriendDbStorage implements FriendStorage {
      */
     @Override
     public void addFriend(int userId, int friendId) {
-        log.info("Добавление друга: пользователь {} добавляет пользователя {}", userId, friendId);
+        log.debug("Добавление друга: пользователь {} добавляет пользователя {}", userId, friendId);
         String sql = "INSERT INTO friends (user_id, friend_id) VALUES (?, ?)";
         jdbcTemplate.update(sql, userId, friendId);
+        friendGraph.addFriend(userId, friendId);
     }
     /**
      * Удаляет друга у пользователя.
@@ -39,9 +68,10 @@ public class FriendDbStorage implements FriendStorage {
      */
     @Override
     public void removeFriend(int userId, int friendId) {
-        log.info("Удаление друга: пользователь {} удаляет пользователя {}", userId, friendId);
+        log.debug("Удаление друга: пользователь {} удаляет пользователя {}", userId, friendId);
         String sql = "DELETE FROM friends WHERE user_id = ? AND friend_id = ?";
         jdbcTemplate.update(sql, userId, friendId);
+        friendGraph.removeFriend(userId, friendId);
     }
     /**
      * Возвращает список друзей пользователя.
@@ -51,26 +81,59 @@ public class FriendDbStorage implements FriendStorage {
      */
     @Override
     public List<User> getFriends(int userId) {
-        log.info("Получение списка друзей пользователя {}", userId);
+        log.debug("Получение списка друзей пользователя {}", userId);
         String sql = "SELECT u.* FROM users u JOIN friends f ON u.user_id = f.friend_id WHERE f.user_id = ?";
         return jdbcTemplate.query(sql, this::mapRowToUser, userId);
     }
 
     /**
      * Возвращает список общих друзей двух пользователей.
+     * ID общих друзей вычисляются пересечением отсортированных списков из {@link FriendGraph},
+     * из БД одним запросом загружаются только сами пользователи.
      *
      * @param userId   ID первого пользователя
      * @param otherId  ID второго пользователя
-     * @return список общих друзей
+     * @return список общих друзей, упорядоченный по ID
      */
     @Override
     public List<User> getCommonFriends(int userId, int otherId) {
-        log.info("Получение общих друзей пользователей {} и {}", userId, otherId);
-        String sql = "SELECT u.* FROM users u " +
-                "JOIN friends f1 ON u.user_id = f1.friend_id " +
-                "JOIN friends f2 ON u.user_id = f2.friend_id " +
-                "WHERE f1.user_id = ? AND f2.user_id = ?";
-        return jdbcTemplate.query(sql, this::mapRowToUser, userId, otherId);
+        log.debug("Получение общих друзей пользователей {} и {}", userId, otherId);
+        return getUsersByIds(friendGraph.getCommonFriendIds(userId, otherId).toIntArray());
+    }
+
+    /**
+     * Возвращает рекомендуемых друзей. Ранжирование выполняется по {@link FriendGraph},
+     * из БД одним запросом загружаются только рекомендованные пользователи.
+     *
+     * @param userId ID пользователя
+     * @param limit  максимальное количество рекомендаций
+     * @return список рекомендуемых пользователей по убыванию количества общих друзей
+     */
+    @Override
+    public List<User> getFriendSuggestions(int userId, int limit) {
+        log.debug("Получение рекомендаций друзей для пользователя {}", userId);
+        int[] ids = friendGraph.suggestFriends(userId, limit);
+        Map<Integer, User> usersById = new HashMap<>();
+        getUsersByIds(ids).forEach(user -> usersById.put(user.getId(), user));
+        List<User> users = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            User user = usersById.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    private List<User> getUsersByIds(int[] ids) {
+        List<User> users = new ArrayList<>(ids.length);
+        String sql = "SELECT * FROM users WHERE user_id IN (:ids) ORDER BY user_id";
+        for (int from = 0; from < ids.length; from += IN_BATCH_SIZE) {
+            int[] chunk = Arrays.copyOfRange(ids, from, Math.min(ids.length, from + IN_BATCH_SIZE));
+            users.addAll(namedParameterJdbcTemplate.query(sql,
+                    new MapSqlParameterSource("ids", Arrays.stream(chunk).boxed().toList()), this::mapRowToUser));
+        }
+        return users;
     }
 
     private User mapRowToUser(ResultSet rs, int rowNum) throws SQLException {
@@ -80,6 +143,7 @@ public class FriendDbStorage implements FriendStorage {
         user.setLogin(rs.getString("login"));
         user.setName(rs.getString("user_name"));
         user.setBirthday(rs.getDate("birthday") != null ? rs.getDate("birthday").toLocalDate() : null);
+        user.setFriends(SortedIntSet.empty());
         return user;
     }
 }
@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.storage.friend;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.util.IntCounter;
+import ru.yandex.practicum.filmorate.util.IntTopK;
+import ru.yandex.practicum.filmorate.util.SortedIntSet;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Граф дружбы в памяти приложения: для каждого пользователя хранится отсортированный массив ID друзей.
+ * Списки неизменяемы и заменяются целиком при изменении (copy-on-write), поэтому чтение выполняется
+ * без блокировок. Заполняется и поддерживается в актуальном состоянии {@link FriendDbStorage}.
+ */
+@Component
+public class FriendGraph {
+    private final Map<Integer, SortedIntSet> friendsByUser = new ConcurrentHashMap<>();
+
+    /**
+     * Устанавливает список друзей пользователя.
+     *
+     * @param userId    ID пользователя
+     * @param friendIds ID друзей
+     */
+    public void setFriends(int userId, SortedIntSet friendIds) {
+        if (friendIds.isEmpty()) {
+            friendsByUser.remove(userId);
+        } else {
+            friendsByUser.put(userId, friendIds);
+        }
+    }
+
+    /**
+     * Добавляет друга пользователю.
+     *
+     * @param userId   ID пользователя
+     * @param friendId ID друга
+     */
+    public void addFriend(int userId, int friendId) {
+        friendsByUser.compute(userId, (id, friends) ->
+                friends == null ? SortedIntSet.empty().with(friendId) : friends.with(friendId));
+    }
+
+    /**
+     * Удаляет друга у пользователя.
+     *
+     * @param userId   ID пользователя
+     * @param friendId ID друга
+     */
+    public void removeFriend(int userId, int friendId) {
+        friendsByUser.computeIfPresent(userId, (id, friends) -> {
+            SortedIntSet updated = friends.without(friendId);
+            return updated.isEmpty() ? null : updated;
+        });
+    }
+
+    /**
+     * Возвращает ID друзей пользователя в порядке возрастания.
+     *
+     * @param userId ID пользователя
+     * @return множество ID друзей
+     */
+    public SortedIntSet getFriendIds(int userId) {
+        return friendsByUser.getOrDefault(userId, SortedIntSet.empty());
+    }
+
+    /**
+     * Возвращает ID общих друзей двух пользователей в порядке возрастания.
+     *
+     * @param userId  ID первого пользователя
+     * @param otherId ID второго пользователя
+     * @return множество ID общих друзей
+     */
+    public SortedIntSet getCommonFriendIds(int userId, int otherId) {
+        return getFriendIds(userId).intersect(getFriendIds(otherId));
+    }
+
+    /**
+     * Возвращает ID рекомендуемых друзей: пользователей, которые есть в списках друзей друзей,
+     * но не являются друзьями самого пользователя. Кандидаты упорядочены по убыванию количества
+     * общих друзей, при равенстве — по возрастанию ID.
+     * Подсчёт выполняется в примитивной хеш-таблице, лучшие кандидаты отбираются кучей размера {@code limit}.
+     *
+     * @param userId ID пользователя
+     * @param limit  максимальное количество рекомендаций
+     * @return ID рекомендуемых пользователей
+     */
+    public int[] suggestFriends(int userId, int limit) {
+        SortedIntSet friends = getFriendIds(userId);
+        if (friends.isEmpty() || limit <= 0) {
+            return new int[0];
+        }
+        IntCounter counter = new IntCounter(friends.size() * 4);
+        friends.forEachInt(friendId -> getFriendIds(friendId).forEachInt(candidateId -> {
+            if (candidateId != userId && !friends.contains(candidateId)) {
+                counter.increment(candidateId);
+            }
+        }));
+        IntTopK top = new IntTopK(limit);
+        counter.forEach((candidateId, mutual) -> top.offer(mutual, candidateId));
+        return top.toSortedIds();
+    }
+
+    /**
+     * Удаляет все связи.
+     */
+    public void clear() {
+        friendsByUser.clear();
+    }
+}
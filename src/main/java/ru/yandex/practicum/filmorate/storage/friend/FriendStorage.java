@@ -36,4 +36,12 @@ public interface FriendStorage {
      * @return список общих друзей
      */
     List<User> getCommonFriends(int userId, int otherId);
+    /**
+     * Возвращает рекомендуемых друзей: друзей друзей, упорядоченных по количеству общих друзей.
+     *
+     * @param userId ID пользователя
+     * @param limit  максимальное количество рекомендаций
+     * @return список рекомендуемых пользователей
+     */
+    List<User> getFriendSuggestions(int userId, int limit);
 }
@@ -32,10 +32,10 @@ public class GenreDbStorage implements GenreStorage {
      */
     @Override
     public List<Genre> getAllGenres() {
-        log.info("Получение всех жанров");
+        log.debug("Получение всех жанров");
         String sql = "SELECT * FROM genres";
         List<Genre> genres = jdbcTemplate.query(sql, this::mapRowToGenre);
-        log.info("Найдено жанров: {}", genres.size());
+        log.debug("Найдено жанров: {}", genres.size());
         return genres;
     }
 
@@ -47,7 +47,7 @@ public class GenreDbStorage implements GenreStorage {
      */
     @Override
     public Optional<Genre> getGenreById(int id) {
-        log.info("Получение жанра с id: {}", id);
+        log.debug("Получение жанра с id: {}", id);
         String sql = "SELECT * FROM genres WHERE genre_id = ?";
         List<Genre> genres = jdbcTemplate.query(sql, this::mapRowToGenre, id);
         if (genres.isEmpty()) {
@@ -55,7 +55,7 @@ public class GenreDbStorage implements GenreStorage {
             return Optional.empty();
         }
         Genre genre = genres.get(0);
-        log.info("Жанр найден: {}", genre);
+        log.debug("Жанр найден: {}", genre);
         return Optional.of(genre);
     }
 
@@ -27,10 +27,10 @@ public class MpaDbStorage implements MpaStorage {
      */
     @Override
     public List<Mpa> getAllMpa() {
-        log.info("Получение всех рейтингов MPA");
+        log.debug("Получение всех рейтингов MPA");
         String sql = "SELECT * FROM mpa";
         List<Mpa> mpas = jdbcTemplate.query(sql, this::mapRowToMpa);
-        log.info("Найдено рейтингов MPA: {}", mpas.size());
+        log.debug("Найдено рейтингов MPA: {}", mpas.size());
         return mpas;
     }
     /**
@@ -41,7 +41,7 @@ public class MpaDbStorage implements MpaStorage {
      */
     @Override
     public Optional<Mpa> getMpaById(int id) {
-        log.info("Получение рейтинга MPA с id: {}", id);
+        log.debug("Получение рейтинга MPA с id: {}", id);
         String sql = "SELECT * FROM mpa WHERE mpa_id = ?";
         List<Mpa> mpas = jdbcTemplate.query(sql, this::mapRowToMpa, id);
         if (mpas.isEmpty()) {
@@ -50,7 +50,7 @@ public class MpaDbStorage implements MpaStorage {
         }
 
         Mpa mpa = mpas.get(0);
-        log.info("Рейтинг MPA найден: {}", mpa);
+        log.debug("Рейтинг MPA найден: {}", mpa);
         return Optional.of(mpa);
     }
 
@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.storage.reference;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кеш справочных данных: жанров и рейтингов MPA.
+ * Справочники загружаются из БД один раз в массивы, индексированные по ID,
+ * и обслуживают чтение без обращения к БД. Перезагрузка выполняется методом {@link #refresh()}.
+ * Модели жанров и рейтингов изменяемы, поэтому наружу выдаются копии, а хранящиеся в кеше
+ * экземпляры не покидают его.
+ */
+@Component
+@Slf4j
+public class ReferenceDataCache {
+
+    private final GenreStorage genreStorage;
+    private final MpaStorage mpaStorage;
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    public ReferenceDataCache(GenreStorage genreStorage, MpaStorage mpaStorage) {
+        this.genreStorage = genreStorage;
+        this.mpaStorage = mpaStorage;
+    }
+
+    /**
+     * Загружает справочники из БД и атомарно заменяет текущий снимок.
+     */
+    @PostConstruct
+    public void refresh() {
+        List<Genre> genres = genreStorage.getAllGenres().stream().map(Genre::copy).toList();
+        List<Mpa> mpa = mpaStorage.getAllMpa().stream().map(Mpa::copy).toList();
+        Genre[] genresById = new Genre[genres.stream().mapToInt(Genre::getId).max().orElse(0) + 1];
+        genres.forEach(genre -> genresById[genre.getId()] = genre);
+        Mpa[] mpaById = new Mpa[mpa.stream().mapToInt(Mpa::getId).max().orElse(0) + 1];
+        mpa.forEach(rating -> mpaById[rating.getId()] = rating);
+        snapshot = new Snapshot(genres, genresById, mpa, mpaById, version.incrementAndGet());
+        log.info("Справочники загружены: жанров {}, рейтингов MPA {}", genres.size(), mpa.size());
+    }
+
+    /**
+     * Возвращает список всех жанров.
+     *
+     * @return неизменяемый список копий жанров
+     */
+    public List<Genre> getAllGenres() {
+        return snapshot.genres().stream().map(Genre::copy).toList();
+    }
+
+    /**
+     * Возвращает жанр по ID.
+     *
+     * @param id ID жанра
+     * @return Optional с копией жанра, если найден
+     */
+    public Optional<Genre> getGenreById(int id) {
+        Genre[] genresById = snapshot.genresById();
+        return id >= 0 && id < genresById.length
+                ? Optional.ofNullable(genresById[id]).map(Genre::copy)
+                : Optional.empty();
+    }
+
+    /**
+     * Возвращает список всех рейтингов MPA.
+     *
+     * @return неизменяемый список копий рейтингов
+     */
+    public List<Mpa> getAllMpa() {
+        return snapshot.mpa().stream().map(Mpa::copy).toList();
+    }
+
+    /**
+     * Возвращает рейтинг MPA по ID.
+     *
+     * @param id ID рейтинга
+     * @return Optional с копией рейтинга, если найден
+     */
+    public Optional<Mpa> getMpaById(int id) {
+        Mpa[] mpaById = snapshot.mpaById();
+        return id >= 0 && id < mpaById.length
+                ? Optional.ofNullable(mpaById[id]).map(Mpa::copy)
+                : Optional.empty();
+    }
+
+    /**
+     * Возвращает версию текущего снимка справочников, которая увеличивается при каждой перезагрузке.
+     *
+     * @return версия справочников
+     */
+    public long getVersion() {
+        return snapshot.version();
+    }
+
+    private record Snapshot(List<Genre> genres, Genre[] genresById, List<Mpa> mpa, Mpa[] mpaById, long version) {
+    }
+}
@@ -1,22 +1,30 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.AfterCommit;
+import ru.yandex.practicum.filmorate.storage.friend.FriendGraph;
+import ru.yandex.practicum.filmorate.util.IdBitmap;
+import ru.yandex.practicum.filmorate.util.SortedIntSet;
+import ru.yandex.practicum.filmorate.util.SortedIntSetGrouper;
 
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Optional;
-import java.util.Set;
+import java.util.*;
+import java.util.function.Consumer;
 /**
  * Реализация {@link UserStorage}, использующая JdbcTemplate для работы с таблицей пользователей.
  * Обеспечивает операции CRUD, а также загрузку информации о друзьях.
@@ -25,8 +33,25 @@ import java.util.Set;
 @RequiredArgsConstructor
 @Slf4j
 public class UserDbStorage implements UserStorage {
+    // Количество строк, которое драйвер читает за один раз при потоковой выгрузке.
+    private static final int STREAM_FETCH_SIZE = 500;
 
     private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final FriendGraph friendGraph;
+    private final ApplicationEventPublisher eventPublisher;
+    // ID существующих пользователей для проверок существования без запроса к БД.
+    private final IdBitmap userIds = new IdBitmap();
+
+    /**
+     * Загружает ID существующих пользователей в битовую карту.
+     */
+    @PostConstruct
+    public void loadUserIds() {
+        jdbcTemplate.query("SELECT user_id FROM users", rs -> {
+            userIds.add(rs.getInt("user_id"));
+        });
+    }
 
     /**
      * Создаёт нового пользователя.
@@ -37,6 +62,7 @@ public class UserDbStorage implements UserStorage {
      * @throws DuplicateKeyException если email уже используется
      */
     @Override
+    @Transactional
     public User createUser(User user) {
         // Проверяем, существует ли пользователь с таким email
         String checkEmailSql = "SELECT COUNT(*) FROM users WHERE email = ?";
@@ -60,7 +86,10 @@ public class UserDbStorage implements UserStorage {
         }, keyHolder);
 
         // Устанавливаем сгенерированный ID пользователя и возвращаем объект
-        user.setId(keyHolder.getKey().intValue());
+        int userId = keyHolder.getKey().intValue();
+        user.setId(userId);
+        // ID попадает в битовую карту только после фиксации транзакции.
+        AfterCommit.run(() -> userIds.add(userId));
         return user;
     }
     /**
@@ -71,7 +100,7 @@ public class UserDbStorage implements UserStorage {
      */
     @Override
     public User updateUser(User user) {
-        log.info("Обновление пользователя с id: {}", user.getId());
+        log.debug("Обновление пользователя с id: {}", user.getId());
 
         String sql = "UPDATE users SET email = ?, login = ?, user_name = ?, birthday = ? WHERE user_id = ?";
         jdbcTemplate.update(sql,
@@ -80,7 +109,7 @@ public class UserDbStorage implements UserStorage {
                 user.getName(),
                 Date.valueOf(user.getBirthday()),
                 user.getId());
-        log.info("Пользователь с id {} обновлен: {}", user.getId(), user);
+        log.debug("Пользователь с id {} обновлен: {}", user.getId(), user);
         return user;
     }
     /**
@@ -91,7 +120,7 @@ public class UserDbStorage implements UserStorage {
      */
     @Override
     public Optional<User> getUserById(int id) {
-        log.info("Получение пользователя с id: {}", id);
+        log.debug("Получение пользователя с id: {}", id);
         String sql = "SELECT * FROM users WHERE user_id = ?";
 
         List<User> users = jdbcTemplate.query(sql, this::mapRowToUser, id);
@@ -102,29 +131,108 @@ public class UserDbStorage implements UserStorage {
 
         User user = users.get(0);
         user.setFriends(getFriendsIds(id));
-        log.info("Пользователь найден: {}", user);
+        log.debug("Пользователь найден: {}", user);
         return Optional.of(user);
     }
+    /**
+     * Проверяет существование пользователя.
+     * Сначала проверяется битовая карта известных ID, при промахе выполняется запрос к БД.
+     *
+     * @param id ID пользователя
+     * @return {@code true}, если пользователь существует
+     */
+    @Override
+    public boolean existsById(int id) {
+        if (userIds.contains(id)) {
+            return true;
+        }
+        Boolean exists = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM users WHERE user_id = ?)",
+                Boolean.class, id);
+        if (Boolean.TRUE.equals(exists)) {
+            AfterCommit.run(() -> userIds.add(id));
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Возвращает список всех пользователей.
+     * Пользователи и ID их друзей собираются из одного упорядоченного запроса.
      *
      * @return список пользователей
      */
     @Override
     public List<User> getAllUsers() {
-        log.info("Получение всех пользователей");
-        String sql = "SELECT * FROM users";
-        List<User> users = jdbcTemplate.query(sql, this::mapRowToUser);
-
-        for (User user : users) {
-            user.setFriends(getFriendsIds(user.getId()));
-            log.debug("Пользователь с id {} имеет друзей: {}", user.getId(), user.getFriends());
+        log.debug("Получение всех пользователей");
+        List<User> users = new ArrayList<>();
+        readUsersWithFriends(users::add);
+        log.debug("Всего пользователей: {}", users.size());
+        return users;
+    }
 
+    /**
+     * Возвращает страницу пользователей с ID больше указанного.
+     * Использует keyset-пагинацию по первичному ключу, друзья загружаются одним запросом на страницу.
+     *
+     * @param afterId ID, после которого начинается страница
+     * @param limit   максимальный размер страницы
+     * @return страница пользователей, упорядоченная по ID
+     */
+    @Override
+    public List<User> getUsersPage(int afterId, int limit) {
+        String sql = "SELECT * FROM users WHERE user_id > ? ORDER BY user_id LIMIT ?";
+        List<User> users = jdbcTemplate.query(sql, this::mapRowToUser, afterId, limit);
+        if (!users.isEmpty()) {
+            Map<Integer, User> usersById = new HashMap<>();
+            users.forEach(user -> usersById.put(user.getId(), user));
+            String friendsSql = "SELECT user_id, friend_id FROM friends WHERE user_id IN (:ids) ORDER BY user_id";
+            SortedIntSetGrouper friendsByUser = new SortedIntSetGrouper(
+                    (friendIds, userId) -> usersById.get(userId).setFriends(friendIds));
+            namedParameterJdbcTemplate.query(friendsSql, new MapSqlParameterSource("ids", usersById.keySet()),
+                    rs -> {
+                        friendsByUser.add(rs.getInt("user_id"), rs.getInt("friend_id"));
+                    });
+            friendsByUser.finish();
         }
-        log.info("Всего пользователей: {}", users.size());
         return users;
     }
 
+    /**
+     * Последовательно передаёт всех пользователей обработчику.
+     * Пользователи и их друзья читаются одним упорядоченным по ID запросом через однонаправленный курсор.
+     *
+     * @param consumer обработчик пользователей
+     */
+    @Override
+    public void streamAllUsers(Consumer<User> consumer) {
+        readUsersWithFriends(consumer);
+    }
+
+    /**
+     * Читает пользователей вместе с друзьями одним запросом, упорядоченным по ID пользователя и друга.
+     * ID друзей накапливаются в буфере {@code int[]} и сохраняются как {@link SortedIntSet}.
+     */
+    private void readUsersWithFriends(Consumer<User> consumer) {
+        String sql = "SELECT u.*, f.friend_id FROM users u " +
+                "LEFT JOIN friends f ON u.user_id = f.user_id " +
+                "ORDER BY u.user_id, f.friend_id";
+        FriendsAccumulator accumulator = new FriendsAccumulator(consumer);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement stmt = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            return stmt;
+        }, rs -> {
+            if (!accumulator.isCollecting(rs.getInt("user_id"))) {
+                accumulator.start(mapRowToUser(rs, 0));
+            }
+            int friendId = rs.getInt("friend_id");
+            if (!rs.wasNull()) {
+                accumulator.addFriend(friendId);
+            }
+        });
+        accumulator.flush();
+    }
 
     private User mapRowToUser(ResultSet rs, int rowNum) throws SQLException {
         User user = new User();
@@ -133,13 +241,17 @@ public class UserDbStorage implements UserStorage {
         user.setLogin(rs.getString("login"));
         user.setName(rs.getString("user_name"));
         user.setBirthday(rs.getDate("birthday").toLocalDate());
+        // Все пути чтения возвращают друзей одним неизменяемым типом.
+        user.setFriends(SortedIntSet.empty());
         return user;
     }
 
-    private Set<Integer> getFriendsIds(int userId) {
+    private SortedIntSet getFriendsIds(int userId) {
         String sql = "SELECT friend_id FROM friends WHERE user_id = ?";
-        List<Integer> friendIds = jdbcTemplate.query(sql, (rs, rowNum) -> rs.getInt("friend_id"), userId);
-        return new HashSet<>(friendIds);
+        int[] friendIds = jdbcTemplate.queryForList(sql, Integer.class, userId).stream()
+                .mapToInt(Integer::intValue)
+                .toArray();
+        return SortedIntSet.copyOf(friendIds, friendIds.length);
     }
     /**
      * Сбрасывает автоинкремент ID для таблицы users.
@@ -149,12 +261,63 @@ public class UserDbStorage implements UserStorage {
         log.info("Счётчик user_id сброшен.");
     }
     /**
-     * Удаляет всех пользователей и их связи.
+     * Удаляет всех пользователей и их связи, включая лайки, и обнуляет счётчики лайков фильмов.
+     * После фиксации сбрасывает индексы хранилища и публикует {@link UsersDeletedEvent}
+     * для индекса лайков, рейтинга популярности и кеша фильмов.
      * Используется, как правило, для сброса состояния в тестах.
      */
+    @Transactional
     public void deleteAllUsers() {
+        jdbcTemplate.update("DELETE FROM friends");
+        jdbcTemplate.update("DELETE FROM film_likes");
+        jdbcTemplate.update("UPDATE films SET likes_count = 0 WHERE likes_count <> 0");
         jdbcTemplate.update("DELETE FROM users");
+        AfterCommit.run(() -> {
+            userIds.clear();
+            friendGraph.clear();
+            eventPublisher.publishEvent(new UsersDeletedEvent());
+        });
         log.info("Все пользователи удалены.");
     }
 
+    /**
+     * Накапливает ID друзей текущего пользователя и передаёт его обработчику с готовым {@link SortedIntSet}
+     * при переходе к следующему пользователю и при вызове {@link #flush()}.
+     */
+    private static final class FriendsAccumulator {
+        private final Consumer<User> consumer;
+        private User current;
+        private int[] friendIds = new int[16];
+        private int friendsCount;
+
+        private FriendsAccumulator(Consumer<User> consumer) {
+            this.consumer = consumer;
+        }
+
+        private boolean isCollecting(int userId) {
+            return current != null && current.getId() == userId;
+        }
+
+        private void start(User user) {
+            flush();
+            current = user;
+        }
+
+        private void addFriend(int friendId) {
+            if (friendsCount == friendIds.length) {
+                friendIds = Arrays.copyOf(friendIds, friendIds.length * 2);
+            }
+            friendIds[friendsCount++] = friendId;
+        }
+
+        private void flush() {
+            if (current == null) {
+                return;
+            }
+            current.setFriends(SortedIntSet.copyOf(friendIds, friendsCount));
+            consumer.accept(current);
+            current = null;
+            friendsCount = 0;
+        }
+    }
 }
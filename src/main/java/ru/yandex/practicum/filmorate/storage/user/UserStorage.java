@@ -5,6 +5,7 @@ import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Интерфейс хранилища пользователей.
@@ -36,6 +37,14 @@ public interface UserStorage {
      */
     Optional<User> getUserById(int id);
 
+    /**
+     * Проверяет существование пользователя без загрузки его данных.
+     *
+     * @param id ID пользователя
+     * @return {@code true}, если пользователь существует
+     */
+    boolean existsById(int id);
+
     /**
      * Возвращает список всех пользователей.
      *
@@ -43,4 +52,20 @@ public interface UserStorage {
      */
     List<User> getAllUsers();
 
+    /**
+     * Возвращает страницу пользователей с ID больше указанного, упорядоченную по ID.
+     *
+     * @param afterId ID, после которого начинается страница (курсор)
+     * @param limit   максимальный размер страницы
+     * @return страница пользователей
+     */
+    List<User> getUsersPage(int afterId, int limit);
+
+    /**
+     * Последовательно передаёт всех пользователей обработчику, не накапливая их в памяти.
+     *
+     * @param consumer обработчик пользователей
+     */
+    void streamAllUsers(Consumer<User> consumer);
+
 }
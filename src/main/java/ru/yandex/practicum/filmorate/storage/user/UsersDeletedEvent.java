@@ -0,0 +1,9 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+/**
+ * Событие удаления всех пользователей вместе с их дружбой и лайками.
+ * Публикуется {@link UserDbStorage} после фиксации удаления. Счётчики лайков фильмов в БД к этому моменту
+ * обнулены, а индексы, рейтинг и кеши в памяти по этому событию сбрасывают лайки у себя.
+ */
+public record UsersDeletedEvent() {
+}
@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.BitSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Потокобезопасное множество неотрицательных ID на основе битовой карты.
+ * Занимает один бит на каждое значение до максимального ID, проверка выполняется за O(1).
+ */
+public final class IdBitmap {
+    private final BitSet bits = new BitSet();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Проверяет наличие ID.
+     *
+     * @param id ID
+     * @return {@code true}, если ID добавлен
+     */
+    public boolean contains(int id) {
+        if (id < 0) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return bits.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Добавляет ID.
+     *
+     * @param id неотрицательный ID
+     */
+    public void add(int id) {
+        lock.writeLock().lock();
+        try {
+            bits.set(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Удаляет все ID.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            bits.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
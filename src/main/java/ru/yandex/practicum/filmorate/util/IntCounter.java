@@ -0,0 +1,125 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+
+/**
+ * Счётчик по ключам {@code int} на открытой адресации без упаковки в объекты.
+ * Предназначен для подсчёта кандидатов внутри одного запроса и не является потокобезопасным.
+ */
+public final class IntCounter {
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    private int[] keys;
+    private int[] counts;
+    private int size;
+
+    /**
+     * Создаёт счётчик, рассчитанный на указанное количество ключей.
+     *
+     * @param expectedSize ожидаемое количество ключей
+     */
+    public IntCounter(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize) * 2 - 1) << 1;
+        keys = new int[capacity];
+        counts = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Увеличивает значение ключа на единицу.
+     *
+     * @param key ключ
+     */
+    public void increment(int key) {
+        add(key, 1);
+    }
+
+    /**
+     * Увеличивает значение ключа на указанную величину.
+     *
+     * @param key   ключ
+     * @param delta приращение
+     */
+    public void add(int key, int delta) {
+        int index = indexOf(key);
+        if (keys[index] == EMPTY) {
+            keys[index] = key;
+            counts[index] = delta;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+            return;
+        }
+        counts[index] += delta;
+    }
+
+    /**
+     * Возвращает значение ключа.
+     *
+     * @param key ключ
+     * @return значение или 0, если ключ отсутствует
+     */
+    public int get(int key) {
+        int index = indexOf(key);
+        return keys[index] == EMPTY ? 0 : counts[index];
+    }
+
+    /**
+     * Возвращает количество ключей.
+     *
+     * @return количество ключей
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Передаёт обработчику все пары ключ-значение в произвольном порядке.
+     *
+     * @param consumer обработчик
+     */
+    public void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], counts[i]);
+            }
+        }
+    }
+
+    private int indexOf(int key) {
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        while (keys[index] != EMPTY && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new int[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                counts[index] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Обработчик пары ключ-значение.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int key, int count);
+    }
+}
@@ -0,0 +1,154 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Изменяемое множество целых чисел на открытой адресации без упаковки в объекты.
+ * Добавление и удаление выполняются за амортизированное O(1) без копирования всех элементов.
+ * Не является потокобезопасным: доступ из нескольких потоков синхронизируется вызывающим кодом.
+ */
+public final class IntHashSet {
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    private int[] keys;
+    private int size;
+
+    /**
+     * Создаёт множество, рассчитанное на указанное количество значений.
+     *
+     * @param expectedSize ожидаемое количество значений
+     */
+    public IntHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Создаёт множество из значений отсортированного множества.
+     *
+     * @param values исходные значения
+     * @return новое множество
+     */
+    public static IntHashSet copyOf(SortedIntSet values) {
+        IntHashSet set = new IntHashSet(values.size());
+        values.forEachInt(set::add);
+        return set;
+    }
+
+    /**
+     * Добавляет значение.
+     *
+     * @param value значение, отличное от {@link Integer#MIN_VALUE}
+     * @return {@code true}, если значения не было в множестве
+     */
+    public boolean add(int value) {
+        int index = indexOf(value);
+        if (keys[index] == value) {
+            return false;
+        }
+        keys[index] = value;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * Удаляет значение. Следующие за ним элементы цепочки сдвигаются назад, поэтому надгробия не нужны.
+     *
+     * @param value значение
+     * @return {@code true}, если значение было в множестве
+     */
+    public boolean remove(int value) {
+        int mask = keys.length - 1;
+        int index = indexOf(value);
+        if (keys[index] != value) {
+            return false;
+        }
+        int next = index;
+        while (true) {
+            next = (next + 1) & mask;
+            int key = keys[next];
+            if (key == EMPTY) {
+                break;
+            }
+            int home = mix(key) & mask;
+            // Элемент можно перенести в освободившуюся ячейку, если она лежит на его пути от исходной позиции.
+            if (((next - home) & mask) >= ((next - index) & mask)) {
+                keys[index] = key;
+                index = next;
+            }
+        }
+        keys[index] = EMPTY;
+        size--;
+        return true;
+    }
+
+    /**
+     * Проверяет принадлежность значения множеству.
+     *
+     * @param value значение
+     * @return {@code true}, если значение присутствует
+     */
+    public boolean contains(int value) {
+        return keys[indexOf(value)] == value;
+    }
+
+    /**
+     * Возвращает количество значений.
+     *
+     * @return количество значений
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Проверяет, пусто ли множество.
+     *
+     * @return {@code true}, если значений нет
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Передаёт значения обработчику в произвольном порядке.
+     *
+     * @param action обработчик значений
+     */
+    public void forEachInt(IntConsumer action) {
+        for (int key : keys) {
+            if (key != EMPTY) {
+                action.accept(key);
+            }
+        }
+    }
+
+    private int indexOf(int value) {
+        int mask = keys.length - 1;
+        int index = mix(value) & mask;
+        while (keys[index] != EMPTY && keys[index] != value) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        keys = new int[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        for (int key : oldKeys) {
+            if (key != EMPTY) {
+                keys[indexOf(key)] = key;
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
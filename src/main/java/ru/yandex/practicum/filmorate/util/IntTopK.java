@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+
+/**
+ * Отбор {@code k} лучших ID по неотрицательной оценке с помощью кучи фиксированного размера.
+ * Кандидат упакован в {@code long}: старшие биты — оценка, младшие — инвертированный ID,
+ * поэтому при равной оценке выше ранжируется меньший ID. Не является потокобезопасным.
+ */
+public final class IntTopK {
+    private final long[] heap;
+    private int size;
+
+    /**
+     * Создаёт отбор заданного размера.
+     *
+     * @param k максимальное количество отбираемых ID
+     */
+    public IntTopK(int k) {
+        heap = new long[Math.max(0, k)];
+    }
+
+    /**
+     * Предлагает кандидата.
+     *
+     * @param score оценка кандидата
+     * @param id    неотрицательный ID кандидата
+     */
+    public void offer(int score, int id) {
+        if (heap.length == 0) {
+            return;
+        }
+        long value = ((long) score << 32) | (Integer.MAX_VALUE - id);
+        if (size < heap.length) {
+            heap[size] = value;
+            siftUp(size++);
+        } else if (value > heap[0]) {
+            heap[0] = value;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Возвращает отобранные ID по убыванию оценки, при равенстве — по возрастанию ID.
+     *
+     * @return массив ID
+     */
+    public int[] toSortedIds() {
+        long[] sorted = Arrays.copyOf(heap, size);
+        Arrays.sort(sorted);
+        int[] ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = Integer.MAX_VALUE - (int) sorted[size - 1 - i];
+        }
+        return ids;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] <= heap[index]) {
+                return;
+            }
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int smallest = index;
+            int left = index * 2 + 1;
+            int right = left + 1;
+            if (left < size && heap[left] < heap[smallest]) {
+                smallest = left;
+            }
+            if (right < size && heap[right] < heap[smallest]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        long tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+    }
+}
@@ -0,0 +1,195 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * Неизменяемое множество целых чисел, хранящееся в отсортированном массиве {@code int[]}.
+ * Занимает 4 байта на элемент вместо объекта {@link Integer} и узла хеш-таблицы,
+ * проверка принадлежности выполняется двоичным поиском.
+ */
+public final class SortedIntSet extends AbstractSet<Integer> {
+    private static final SortedIntSet EMPTY = new SortedIntSet(new int[0]);
+    // Во сколько раз большее множество должно превосходить меньшее, чтобы пересечение искалось двоичным поиском.
+    private static final int GALLOP_RATIO = 32;
+
+    private final int[] values;
+
+    private SortedIntSet(int[] values) {
+        this.values = values;
+    }
+
+    /**
+     * Возвращает пустое множество.
+     *
+     * @return пустое множество
+     */
+    public static SortedIntSet empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Создаёт множество из первых {@code length} элементов массива.
+     * Массив копируется, сортируется и очищается от повторов.
+     *
+     * @param values исходные значения
+     * @param length количество используемых элементов
+     * @return множество значений
+     */
+    public static SortedIntSet copyOf(int[] values, int length) {
+        if (length == 0) {
+            return EMPTY;
+        }
+        int[] copy = Arrays.copyOf(values, length);
+        Arrays.sort(copy);
+        int unique = 1;
+        for (int i = 1; i < copy.length; i++) {
+            if (copy[i] != copy[unique - 1]) {
+                copy[unique++] = copy[i];
+            }
+        }
+        return new SortedIntSet(unique == copy.length ? copy : Arrays.copyOf(copy, unique));
+    }
+
+    /**
+     * Возвращает множество с добавленным значением. Исходное множество не изменяется.
+     *
+     * @param value значение
+     * @return новое множество или это же, если значение уже присутствует
+     */
+    public SortedIntSet with(int value) {
+        int index = Arrays.binarySearch(values, value);
+        if (index >= 0) {
+            return this;
+        }
+        int position = -index - 1;
+        int[] copy = new int[values.length + 1];
+        System.arraycopy(values, 0, copy, 0, position);
+        copy[position] = value;
+        System.arraycopy(values, position, copy, position + 1, values.length - position);
+        return new SortedIntSet(copy);
+    }
+
+    /**
+     * Возвращает множество без указанного значения. Исходное множество не изменяется.
+     *
+     * @param value значение
+     * @return новое множество или это же, если значение отсутствует
+     */
+    public SortedIntSet without(int value) {
+        int index = Arrays.binarySearch(values, value);
+        if (index < 0) {
+            return this;
+        }
+        if (values.length == 1) {
+            return EMPTY;
+        }
+        int[] copy = new int[values.length - 1];
+        System.arraycopy(values, 0, copy, 0, index);
+        System.arraycopy(values, index + 1, copy, index, values.length - index - 1);
+        return new SortedIntSet(copy);
+    }
+
+    /**
+     * Возвращает пересечение с другим множеством.
+     * Для множеств сопоставимого размера выполняется линейное слияние, а если одно из них
+     * намного меньше — двоичный поиск его элементов в большем.
+     *
+     * @param other другое множество
+     * @return множество общих значений
+     */
+    public SortedIntSet intersect(SortedIntSet other) {
+        int[] small = values.length <= other.values.length ? values : other.values;
+        int[] large = small == values ? other.values : values;
+        if (small.length == 0) {
+            return EMPTY;
+        }
+        int[] result = new int[small.length];
+        int count = 0;
+        if (large.length / small.length >= GALLOP_RATIO) {
+            for (int value : small) {
+                if (Arrays.binarySearch(large, value) >= 0) {
+                    result[count++] = value;
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < small.length && j < large.length) {
+                if (small[i] < large[j]) {
+                    i++;
+                } else if (small[i] > large[j]) {
+                    j++;
+                } else {
+                    result[count++] = small[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return count == 0 ? EMPTY : new SortedIntSet(Arrays.copyOf(result, count));
+    }
+
+    /**
+     * Проверяет наличие значения в множестве.
+     *
+     * @param value значение
+     * @return {@code true}, если значение присутствует
+     */
+    public boolean contains(int value) {
+        return Arrays.binarySearch(values, value) >= 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer value && contains(value.intValue());
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Передаёт значения обработчику в порядке возрастания без упаковки в {@link Integer}.
+     *
+     * @param action обработчик значений
+     */
+    public void forEachInt(IntConsumer action) {
+        for (int value : values) {
+            action.accept(value);
+        }
+    }
+
+    /**
+     * Возвращает копию значений в порядке возрастания.
+     *
+     * @return массив значений
+     */
+    public int[] toIntArray() {
+        return values.clone();
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < values.length;
+            }
+
+            @Override
+            public Integer next() {
+                if (index >= values.length) {
+                    throw new NoSuchElementException();
+                }
+                return values[index++];
+            }
+        };
+    }
+}
@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Собирает пары (ключ, значение), упорядоченные по ключу, в множества {@link SortedIntSet} по ключам.
+ * Значения текущего ключа накапливаются в буфере {@code int[]}, готовое множество передаётся
+ * обработчику при смене ключа и при вызове {@link #finish()}.
+ */
+public final class SortedIntSetGrouper {
+    private final ObjIntConsumer<SortedIntSet> sink;
+    private int key;
+    private int[] values = new int[16];
+    private int count;
+
+    /**
+     * Создаёт группировщик.
+     *
+     * @param sink обработчик, получающий множество значений и его ключ
+     */
+    public SortedIntSetGrouper(ObjIntConsumer<SortedIntSet> sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Добавляет значение ключа. Все значения одного ключа должны идти подряд.
+     *
+     * @param key   ключ
+     * @param value значение
+     */
+    public void add(int key, int value) {
+        if (count > 0 && key != this.key) {
+            finish();
+        }
+        this.key = key;
+        if (count == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+        values[count++] = value;
+    }
+
+    /**
+     * Передаёт обработчику значения последнего ключа.
+     */
+    public void finish() {
+        if (count > 0) {
+            sink.accept(SortedIntSet.copyOf(values, count), key);
+            count = 0;
+        }
+    }
+}
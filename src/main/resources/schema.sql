@@ -10,6 +10,7 @@ CREATE TABLE IF NOT EXISTS films (
     release_date DATE,
     duration INT,
     mpa_id INT,
+    likes_count INT NOT NULL DEFAULT 0,
     FOREIGN KEY (mpa_id) REFERENCES mpa(mpa_id)
 );
 
@@ -49,3 +50,17 @@ CREATE TABLE IF NOT EXISTS film_likes (
     FOREIGN KEY (film_id) REFERENCES films(film_id),
     FOREIGN KEY (user_id) REFERENCES users(user_id)
 );
+
+-- Миграция БД, созданных до появления счётчика films.likes_count: столбец добавляется без значения
+-- по умолчанию, заполняется по film_likes только для строк, где он ещё NULL (то есть один раз),
+-- после чего получает значение по умолчанию и ограничение NOT NULL. Для новой БД все шаги ничего не меняют.
+ALTER TABLE films ADD COLUMN IF NOT EXISTS likes_count INT;
+
+UPDATE films f SET likes_count = (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.film_id)
+WHERE likes_count IS NULL;
+
+ALTER TABLE films ALTER COLUMN likes_count SET DEFAULT 0;
+
+ALTER TABLE films ALTER COLUMN likes_count SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_films_likes_count ON films (likes_count DESC, film_id);
@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BulkheadDataSourceTest {
+    private DataSource delegate;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        delegate = Mockito.mock(DataSource.class);
+        Mockito.when(delegate.getConnection()).thenAnswer(invocation -> Mockito.mock(Connection.class));
+    }
+
+    @Test
+    public void shouldRejectWhenLimitExhaustedAndReleaseOnClose() throws Exception {
+        BulkheadDataSource dataSource = new BulkheadDataSource(delegate, 2, 1, Duration.ofMillis(50));
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+        assertThat(dataSource.getActiveCount()).isEqualTo(2);
+
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(ServiceUnavailableException.class);
+
+        first.close();
+        first.close();
+        assertThat(dataSource.getActiveCount()).isEqualTo(1);
+        dataSource.getConnection().close();
+        second.close();
+        assertThat(dataSource.getActiveCount()).isZero();
+    }
+
+    @Test
+    public void shouldRunStreamsUnderSeparateLimit() throws Exception {
+        BulkheadDataSource dataSource = new BulkheadDataSource(delegate, 1, 1, Duration.ofMillis(50));
+        try (BulkheadDataSource.StreamPermit permit = dataSource.acquireStream()) {
+            assertThatThrownBy(dataSource::acquireStream).isInstanceOf(ServiceUnavailableException.class);
+            permit.run(() -> {
+                Connection streaming = dataSource.getConnection();
+                assertThat(dataSource.getActiveCount()).isZero();
+                // Пока выгрузка держит соединение, обычный запрос в другом потоке получает общее разрешение.
+                try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+                    executor.submit(() -> {
+                        dataSource.getConnection().close();
+                        return null;
+                    }).get();
+                }
+                streaming.close();
+            });
+            assertThat(dataSource.getActiveStreamCount()).isEqualTo(1);
+            Connection regular = dataSource.getConnection();
+            assertThat(dataSource.getActiveCount()).isEqualTo(1);
+            regular.close();
+        }
+        assertThat(dataSource.getActiveStreamCount()).isZero();
+        dataSource.acquireStream().close();
+    }
+
+    @Test
+    public void shouldNotExceedLimitUnderVirtualThreadLoad() throws Exception {
+        int limit = 4;
+        BulkheadDataSource dataSource = new BulkheadDataSource(delegate, limit, 1, Duration.ofSeconds(10));
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 200; i++) {
+                futures.add(executor.submit(() -> {
+                    try (Connection ignored = dataSource.getConnection()) {
+                        maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                        Thread.sleep(2);
+                        active.decrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertThat(maxActive.get()).isLessThanOrEqualTo(limit);
+        assertThat(dataSource.getActiveCount()).isZero();
+    }
+}
@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Sink;
+import org.zalando.logbook.Strategy;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+
+public class LogbookConfigTest {
+    private final LogbookConfig config = new LogbookConfig();
+    private final Correlation correlation = Mockito.mock(Correlation.class);
+    private final HttpRequest request = Mockito.mock(HttpRequest.class);
+    private final HttpRequest requestWithoutBody = Mockito.mock(HttpRequest.class);
+    private final HttpResponse ok = response(200);
+    private final HttpResponse notFound = response(404);
+
+    @Test
+    public void shouldSampleSuccessfulExchangesWithConfiguredRate() throws IOException {
+        assertThat(written(config.strategy(1.0, 400, false), ok)).isEqualTo(10_000);
+        assertThat(written(config.strategy(0.0, 400, false), ok)).isZero();
+        assertThat(written(config.strategy(0.1, 400, false), ok)).isBetween(700, 1300);
+    }
+
+    @Test
+    public void shouldAlwaysWriteErrorsWithBodies() throws IOException {
+        Strategy strategy = config.strategy(0.0, 400, true);
+        assertThat(written(strategy, notFound)).isEqualTo(10_000);
+
+        Sink sink = Mockito.mock(Sink.class);
+        strategy.write(correlation, request, notFound, sink);
+        Mockito.verify(sink).writeBoth(correlation, request, notFound);
+    }
+
+    @Test
+    public void shouldDropBodiesOfSampledSuccessesIfConfigured() throws IOException {
+        Mockito.when(request.withoutBody()).thenReturn(requestWithoutBody);
+        HttpResponse okWithoutBody = response(200);
+        Mockito.when(ok.withoutBody()).thenReturn(okWithoutBody);
+        Sink sink = Mockito.mock(Sink.class);
+
+        config.strategy(1.0, 400, true).write(correlation, request, ok, sink);
+        Mockito.verify(sink).writeBoth(correlation, requestWithoutBody, okWithoutBody);
+    }
+
+    @Test
+    public void shouldRejectRateOutsideUnitInterval() {
+        assertThatThrownBy(() -> config.strategy(1.5, 400, false)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> config.strategy(-0.1, 400, false)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> config.strategy(Double.NaN, 400, false)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private int written(Strategy strategy, HttpResponse response) throws IOException {
+        AtomicInteger count = new AtomicInteger();
+        Sink sink = Mockito.mock(Sink.class);
+        Mockito.doAnswer(invocation -> count.incrementAndGet()).when(sink).writeBoth(any(), any(), any());
+        for (int i = 0; i < 10_000; i++) {
+            strategy.write(correlation, request, response, sink);
+        }
+        return count.get();
+    }
+
+    private static HttpResponse response(int status) {
+        HttpResponse response = Mockito.mock(HttpResponse.class);
+        Mockito.when(response.getStatus()).thenReturn(status);
+        return response;
+    }
+}
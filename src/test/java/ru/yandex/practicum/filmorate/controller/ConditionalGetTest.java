@@ -0,0 +1,160 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.PopularityLeaderboard;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmLikeDbStorage;
+import ru.yandex.practicum.filmorate.storage.friend.FriendDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.yandex.practicum.filmorate.monitoring.SqlAssertions.sqlStatementsAtMost;
+
+/**
+ * Проверяет ETag и условные запросы: неизменившиеся ресурсы возвращают 304 без обращения к БД,
+ * изменения фильмов, пользователей и справочников меняют ETag.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private FilmService filmService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private FilmDbStorage filmDbStorage;
+    @Autowired
+    private UserDbStorage userDbStorage;
+    @Autowired
+    private FilmLikeDbStorage filmLikeDbStorage;
+    @Autowired
+    private FriendDbStorage friendDbStorage;
+    @Autowired
+    private CachingFilmStorage cachingFilmStorage;
+    @Autowired
+    private PopularityLeaderboard leaderboard;
+
+    @BeforeEach
+    void seed() {
+        filmDbStorage.deleteAllFilms();
+        filmDbStorage.resetFilmIdSequence();
+        userDbStorage.deleteAllUsers();
+        userDbStorage.resetUserIdSequence();
+        filmLikeDbStorage.loadLikeIndex();
+        friendDbStorage.loadFriendGraph();
+        leaderboard.load();
+        cachingFilmStorage.evictAll();
+        Film film = new Film();
+        film.setName("Film");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        Mpa mpa = new Mpa();
+        mpa.setId(1);
+        film.setMpa(mpa);
+        filmService.addFilm(film);
+        for (int i = 1; i <= 2; i++) {
+            User user = new User();
+            user.setEmail("etag" + i + "@mail.ru");
+            user.setLogin("etag" + i);
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            userService.createUser(user);
+        }
+    }
+
+    @Test
+    public void filmETagChangesOnLike() throws Exception {
+        String eTag = eTagOf("/films/1");
+        mockMvc.perform(get("/films/1").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""))
+                .andExpect(sqlStatementsAtMost(0));
+
+        mockMvc.perform(put("/films/1/like/1")).andExpect(status().isOk());
+        mockMvc.perform(get("/films/1").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+        assertNotEquals(eTag, eTagOf("/films/1"));
+    }
+
+    @Test
+    public void userETagChangesOnFriendAdded() throws Exception {
+        String eTag = eTagOf("/users/1");
+        mockMvc.perform(get("/users/1").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(sqlStatementsAtMost(0));
+
+        mockMvc.perform(put("/users/1/friends/2")).andExpect(status().isOk());
+        mockMvc.perform(get("/users/1").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+        assertNotEquals(eTag, eTagOf("/users/1"));
+        // Дружба односторонняя, поэтому второй пользователь не изменился.
+        String otherETag = eTagOf("/users/2");
+        mockMvc.perform(delete("/users/1/friends/2")).andExpect(status().isOk());
+        mockMvc.perform(get("/users/2").header(HttpHeaders.IF_NONE_MATCH, otherETag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void referenceDataETagChangesOnRefresh() throws Exception {
+        String genresETag = eTagOf("/genres");
+        String mpaETag = eTagOf("/mpa/1");
+        String filmETag = eTagOf("/films/1");
+        mockMvc.perform(get("/genres").header(HttpHeaders.IF_NONE_MATCH, genresETag))
+                .andExpect(status().isNotModified())
+                .andExpect(sqlStatementsAtMost(0));
+        mockMvc.perform(get("/mpa/1").header(HttpHeaders.IF_NONE_MATCH, mpaETag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/admin/reference-data/refresh")).andExpect(status().isOk());
+        mockMvc.perform(get("/genres").header(HttpHeaders.IF_NONE_MATCH, genresETag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/mpa/1").header(HttpHeaders.IF_NONE_MATCH, mpaETag))
+                .andExpect(status().isOk());
+        // Фильм содержит название рейтинга MPA из справочника.
+        mockMvc.perform(get("/films/1").header(HttpHeaders.IF_NONE_MATCH, filmETag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void unknownResourcesAreNotFoundRegardlessOfETag() throws Exception {
+        mockMvc.perform(get("/films/999").header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/users/999").header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/genres/999").header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isNotFound());
+    }
+
+    private String eTagOf(String uri) throws Exception {
+        String eTag = mockMvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+        return eTag;
+    }
+}
@@ -6,8 +6,10 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.yandex.practicum.filmorate.exception.ResourceNotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
@@ -15,13 +17,23 @@ import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(FilmController.class)
+@Import(NdjsonResponses.class)
 public class FilmControllerTest {
 
     @Autowired
@@ -92,4 +104,49 @@ public class FilmControllerTest {
                 .andExpect(status().isNotFound());  // 404
     }
 
+    @Test
+    public void shouldReturnNextCursorWhenPageIsFull() throws Exception {
+        Film first = new Film();
+        first.setId(11);
+        Film second = new Film();
+        second.setId(12);
+        Mockito.when(filmService.getFilmsPage(10, 2)).thenReturn(List.of(first, second));
+        Mockito.when(filmService.getFilmsPage(12, 2)).thenReturn(List.of());
+
+        mockMvc.perform(get("/films").param("after", "10").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().string(FilmController.NEXT_CURSOR_HEADER, "12"));
+        mockMvc.perform(get("/films").param("after", "12").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(FilmController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldStreamFilmsAsNdjson() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            Consumer<Film> consumer = invocation.getArgument(0);
+            for (int id = 1; id <= 2; id++) {
+                Film film = new Film();
+                film.setId(id);
+                film.setName("Film " + id);
+                consumer.accept(film);
+            }
+            return null;
+        }).when(filmService).streamAllFilms(any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(get("/films/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readValue(lines[1], Film.class).getName())
+                .isEqualTo("Film 2");
+    }
 }
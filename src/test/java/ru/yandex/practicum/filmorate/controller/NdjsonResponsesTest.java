@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import ru.yandex.practicum.filmorate.config.BulkheadDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NdjsonResponsesTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldReleaseStreamPermitIfStreamingNeverStarts() throws Exception {
+        BulkheadDataSource bulkhead = new BulkheadDataSource(Mockito.mock(DataSource.class), 1, 1,
+                Duration.ofMillis(10));
+        ObjectProvider<DataSource> dataSource = Mockito.mock(ObjectProvider.class);
+        Mockito.when(dataSource.getIfAvailable()).thenReturn(bulkhead);
+        NdjsonResponses responses = new NdjsonResponses(new ObjectMapper(), dataSource);
+
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest();
+        servletRequest.setAsyncSupported(true);
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+        ServletWebRequest request = new ServletWebRequest(servletRequest, servletResponse);
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+        asyncManager.setAsyncWebRequest(new StandardServletAsyncWebRequest(servletRequest, servletResponse));
+
+        responses.stream(request, consumer -> {
+        });
+        assertThat(bulkhead.getActiveStreamCount()).isEqualTo(1);
+
+        // Исполнитель отклоняет задачу выгрузки, тело ответа так и не записывается.
+        WebAsyncTask<Object> task = new WebAsyncTask<>(1000L, new RejectingExecutor(), () -> null);
+        asyncManager.startCallableProcessing(task);
+        assertThat(asyncManager.getConcurrentResult()).isInstanceOf(RejectedExecutionException.class);
+        ((MockAsyncContext) servletRequest.getAsyncContext()).complete();
+
+        assertThat(bulkhead.getActiveStreamCount()).isZero();
+    }
+
+    private static final class RejectingExecutor extends SimpleAsyncTaskExecutor {
+        @Override
+        public Future<?> submit(Runnable task) {
+            throw new RejectedExecutionException("Очередь заполнена");
+        }
+
+        @Override
+        public <T> Future<T> submit(Callable<T> task) {
+            throw new RejectedExecutionException("Очередь заполнена");
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceDataCache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверяет выдачу справочников из готовых JSON и gzip-тел: согласование кодировки,
+ * заголовок Vary и сброс тел при перезагрузке справочников.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ReferenceDataResponsesTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @Test
+    public void gzipVariantMatchesIdentityVariant() throws Exception {
+        MockHttpServletResponse identity = mockMvc.perform(get("/mpa"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn().getResponse();
+        assertArrayEquals(objectMapper.writeValueAsBytes(referenceDataCache.getAllMpa()),
+                identity.getContentAsByteArray());
+
+        MockHttpServletResponse gzip = mockMvc.perform(get("/mpa")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse();
+        assertArrayEquals(identity.getContentAsByteArray(), gunzip(gzip.getContentAsByteArray()));
+        assertNotEquals(identity.getHeader(HttpHeaders.ETAG), gzip.getHeader(HttpHeaders.ETAG));
+
+        mockMvc.perform(get("/mpa")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, gzip.getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING));
+        mockMvc.perform(get("/mpa")
+                        .header(HttpHeaders.IF_NONE_MATCH, gzip.getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void bodiesAreRebuiltAfterRefresh() throws Exception {
+        mockMvc.perform(get("/genres")).andExpect(jsonPath("$.length()").value(6));
+        jdbcTemplate.update("INSERT INTO genres (genre_id, genre_name) VALUES (99, 'Вестерн')");
+        try {
+            mockMvc.perform(get("/genres")).andExpect(jsonPath("$.length()").value(6));
+            referenceDataCache.refresh();
+            mockMvc.perform(get("/genres")).andExpect(jsonPath("$.length()").value(7));
+            mockMvc.perform(get("/genres/99"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.name").value("Вестерн"));
+        } finally {
+            jdbcTemplate.update("DELETE FROM genres WHERE genre_id = 99");
+            referenceDataCache.refresh();
+        }
+        mockMvc.perform(get("/genres/99")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void gzipIsChosenByAcceptEncoding() {
+        assertFalse(ReferenceDataResponses.acceptsGzip(null));
+        assertFalse(ReferenceDataResponses.acceptsGzip("identity"));
+        assertFalse(ReferenceDataResponses.acceptsGzip("gzip;q=0, *"));
+        assertFalse(ReferenceDataResponses.acceptsGzip("*, gzip; q=0.0"));
+        assertTrue(ReferenceDataResponses.acceptsGzip("GZIP"));
+        assertTrue(ReferenceDataResponses.acceptsGzip("br;q=1.0, gzip;q=0.8"));
+        assertTrue(ReferenceDataResponses.acceptsGzip("*"));
+    }
+
+    private static byte[] gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readAllBytes();
+        }
+    }
+}
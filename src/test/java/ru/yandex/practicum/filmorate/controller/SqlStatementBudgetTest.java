@@ -0,0 +1,127 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.monitoring.SqlStatisticsFilter;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.PopularityLeaderboard;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmLikeDbStorage;
+import ru.yandex.practicum.filmorate.storage.friend.FriendDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.yandex.practicum.filmorate.monitoring.SqlAssertions.sqlStatementsAtMost;
+
+/**
+ * Проверяет, что количество SQL-выражений на запрос не растёт с объёмом данных (регрессии N+1).
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class SqlStatementBudgetTest {
+    private static final int FILMS = 20;
+    private static final int USERS = 20;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private FilmService filmService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private FilmDbStorage filmDbStorage;
+    @Autowired
+    private UserDbStorage userDbStorage;
+    @Autowired
+    private FilmLikeDbStorage filmLikeDbStorage;
+    @Autowired
+    private FriendDbStorage friendDbStorage;
+    @Autowired
+    private CachingFilmStorage cachingFilmStorage;
+    @Autowired
+    private PopularityLeaderboard leaderboard;
+
+    @BeforeEach
+    void seed() {
+        filmDbStorage.deleteAllFilms();
+        filmDbStorage.resetFilmIdSequence();
+        userDbStorage.deleteAllUsers();
+        userDbStorage.resetUserIdSequence();
+        filmLikeDbStorage.loadLikeIndex();
+        friendDbStorage.loadFriendGraph();
+        leaderboard.load();
+        cachingFilmStorage.evictAll();
+        for (int i = 1; i <= FILMS; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, 1));
+            film.setDuration(100);
+            Mpa mpa = new Mpa();
+            mpa.setId(1);
+            film.setMpa(mpa);
+            Genre genre = new Genre();
+            genre.setId(1 + i % 6);
+            film.getGenres().add(genre);
+            filmService.addFilm(film);
+        }
+        for (int i = 1; i <= USERS; i++) {
+            User user = new User();
+            user.setEmail("budget" + i + "@mail.ru");
+            user.setLogin("budget" + i);
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            userService.createUser(user);
+        }
+        for (int i = 3; i <= USERS; i++) {
+            userService.addFriend(1, i);
+            userService.addFriend(2, i);
+            filmService.addLike(i % FILMS + 1, i);
+        }
+        cachingFilmStorage.evictAll();
+    }
+
+    @Test
+    public void filmEndpointsStayWithinStatementBudget() throws Exception {
+        mockMvc.perform(get("/films"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(FILMS))
+                .andExpect(header().exists(SqlStatisticsFilter.SQL_TIME_HEADER))
+                .andExpect(sqlStatementsAtMost(2));
+        mockMvc.perform(get("/films/popular").param("count", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(10))
+                .andExpect(sqlStatementsAtMost(2));
+        mockMvc.perform(get("/films/1"))
+                .andExpect(status().isOk())
+                .andExpect(sqlStatementsAtMost(0));
+    }
+
+    @Test
+    public void userEndpointsStayWithinStatementBudget() throws Exception {
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(USERS))
+                .andExpect(sqlStatementsAtMost(1));
+        mockMvc.perform(get("/users/1/friends/common/2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(USERS - 2))
+                .andExpect(sqlStatementsAtMost(1));
+        mockMvc.perform(get("/users/1/friends"))
+                .andExpect(status().isOk())
+                .andExpect(sqlStatementsAtMost(1));
+    }
+}
@@ -0,0 +1,439 @@
+package ru.yandex.practicum.filmorate.dataset;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import ru.yandex.practicum.filmorate.util.SortedIntSet;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Генератор синтетического набора данных по схеме из schema.sql: фильмы с жанрами, пользователи,
+ * лайки с распределением популярности фильмов по Ципфу и граф дружбы со степенным распределением
+ * количества друзей. Названия и описания фильмов составляются из синтетического словаря русских
+ * и английских слов с частотой слов по Ципфу, чтобы на них можно было проверять полнотекстовый поиск.
+ * <p>
+ * Строки вставляются многострочными INSERT пакетами JDBC, диапазоны ID обрабатываются параллельно.
+ * Каждый диапазон использует собственный генератор случайных чисел, полученный из seed и номера
+ * диапазона, поэтому результат не зависит от количества потоков и порядка их выполнения.
+ * <p>
+ * Генератор заполняет пустые таблицы; индексы приложения в памяти после заполнения нужно перечитать.
+ * Запуск из командной строки для файловой базы приложения:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=ru.yandex.practicum.filmorate.dataset.DatasetGenerator \
+ *     -Dexec.args="jdbc:h2:file:./db/filmorate 1000000 100000 20 10"
+ * </pre>
+ */
+@Slf4j
+public class DatasetGenerator {
+    private static final int GENRES = 6;
+    private static final int MPA = 5;
+    // Ограничение количества лайков и друзей одного пользователя относительно среднего.
+    private static final int MAX_DEGREE_FACTOR = 100;
+    private static final long FILMS_STREAM = 1;
+    private static final long USERS_STREAM = 2;
+    private static final long LIKES_STREAM = 3;
+    private static final long FRIENDS_STREAM = 4;
+    // Словарь названий и описаний: уникальные слова из 2-4 слогов, чётные — латиницей, нечётные — кириллицей.
+    private static final String[] LATIN_SYLLABLES = {"ka", "lo", "mi", "ra", "ten", "sor", "vel", "dar",
+            "nos", "ti", "bu", "gen", "mar", "lis", "or", "an"};
+    private static final String[] CYRILLIC_SYLLABLES = {"ка", "ло", "ми", "ра", "тен", "сор", "вёл", "дар",
+            "нос", "ти", "бу", "ген", "мар", "лис", "ор", "ан"};
+    private static final int VOCABULARY_SIZE = 20_000;
+    private static final String[] VOCABULARY = vocabulary();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatasetSpec spec;
+    private final ZipfSampler wordFrequency;
+
+    public DatasetGenerator(DataSource dataSource, DatasetSpec spec) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.spec = spec;
+        this.wordFrequency = new ZipfSampler(VOCABULARY_SIZE, spec.getZipfExponent());
+    }
+
+    /**
+     * Создаёт схему и заполняет базу данных.
+     * Аргументы: URL базы, количество пользователей, фильмов, среднее количество лайков и друзей, seed.
+     *
+     * @param args аргументы командной строки
+     */
+    public static void main(String[] args) {
+        String url = args.length > 0 ? args[0] : "jdbc:h2:file:./db/filmorate";
+        DatasetSpec.DatasetSpecBuilder builder = DatasetSpec.builder();
+        if (args.length > 1) {
+            builder.users(Integer.parseInt(args[1]));
+        }
+        if (args.length > 2) {
+            builder.films(Integer.parseInt(args[2]));
+        }
+        if (args.length > 3) {
+            builder.likesPerUser(Double.parseDouble(args[3]));
+        }
+        if (args.length > 4) {
+            builder.friendsPerUser(Double.parseDouble(args[4]));
+        }
+        if (args.length > 5) {
+            builder.seed(Long.parseLong(args[5]));
+        }
+        SimpleDriverDataSource dataSource = new SimpleDriverDataSource(new org.h2.Driver(), url, "sa", "1");
+        initSchema(dataSource);
+        new DatasetGenerator(dataSource, builder.build()).generate();
+    }
+
+    /**
+     * Создаёт таблицы и справочники скриптами приложения schema.sql и data.sql.
+     *
+     * @param dataSource источник данных
+     */
+    public static void initSchema(DataSource dataSource) {
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql"), new ClassPathResource("data.sql"))
+                .execute(dataSource);
+    }
+
+    /**
+     * Заполняет таблицы фильмов, жанров фильмов, пользователей, лайков и друзей.
+     * ID фильмов и пользователей идут подряд, начиная с 1.
+     *
+     * @return количество вставленных строк по таблицам
+     */
+    public Summary generate() {
+        long started = System.nanoTime();
+        ZipfSampler filmPopularity = new ZipfSampler(spec.getFilms(), spec.getZipfExponent());
+        ZipfSampler userPopularity = new ZipfSampler(spec.getUsers(), spec.getZipfExponent());
+        AtomicIntegerArray likesByFilm = new AtomicIntegerArray(spec.getFilms() + 1);
+        AtomicLong likes = new AtomicLong();
+        AtomicLong friendships = new AtomicLong();
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, spec.getThreads()));
+        try {
+            runChunks(executor, spec.getFilms(), FILMS_STREAM, this::insertFilms);
+            runChunks(executor, spec.getUsers(), USERS_STREAM, this::insertUsers);
+            runChunks(executor, spec.getUsers(), LIKES_STREAM, (connection, from, to, random) ->
+                    likes.addAndGet(insertLikes(connection, from, to, random, filmPopularity, likesByFilm)));
+            runChunks(executor, spec.getUsers(), FRIENDS_STREAM, (connection, from, to, random) ->
+                    friendships.addAndGet(insertFriends(connection, from, to, random, userPopularity)));
+        } finally {
+            executor.shutdown();
+        }
+        updateLikeCounts(likesByFilm);
+        jdbcTemplate.execute("ALTER TABLE films ALTER COLUMN film_id RESTART WITH " + (spec.getFilms() + 1));
+        jdbcTemplate.execute("ALTER TABLE users ALTER COLUMN user_id RESTART WITH " + (spec.getUsers() + 1));
+
+        Summary summary = new Summary(spec.getFilms(), spec.getUsers(), likes.get(), friendships.get());
+        log.info("Набор данных сгенерирован за {} мс: {}", (System.nanoTime() - started) / 1_000_000, summary);
+        return summary;
+    }
+
+    /**
+     * Удаляет все фильмы, пользователей и связи между ними. Справочники не затрагиваются.
+     */
+    public void clear() {
+        jdbcTemplate.update("DELETE FROM friends");
+        jdbcTemplate.update("DELETE FROM film_likes");
+        jdbcTemplate.update("DELETE FROM film_genres");
+        jdbcTemplate.update("DELETE FROM films");
+        jdbcTemplate.update("DELETE FROM users");
+    }
+
+    private void insertFilms(Connection connection, int from, int to, SplittableRandom random) throws SQLException {
+        try (MultiRowInserter films = new MultiRowInserter(connection, "films",
+                "film_id, film_name, description, release_date, duration, mpa_id", spec.getRowsPerStatement())) {
+            for (int id = from; id < to; id++) {
+                films.add(id, text(random, 1 + random.nextInt(4)), text(random, 5 + random.nextInt(11)),
+                        Date.valueOf(LocalDate.of(1900 + random.nextInt(125), 1 + random.nextInt(12),
+                                1 + random.nextInt(28))),
+                        60 + random.nextInt(120), 1 + random.nextInt(MPA));
+            }
+        }
+        try (MultiRowInserter genres = new MultiRowInserter(connection, "film_genres",
+                "film_id, genre_id", spec.getRowsPerStatement())) {
+            for (int id = from; id < to; id++) {
+                int first = random.nextInt(GENRES);
+                int count = 1 + random.nextInt(3);
+                for (int i = 0; i < count; i++) {
+                    genres.add(id, 1 + (first + i) % GENRES);
+                }
+            }
+        }
+    }
+
+    private String text(SplittableRandom random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            String word = VOCABULARY[wordFrequency.sample(random) - 1];
+            text.append(i == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+        }
+        return text.toString();
+    }
+
+    private static String[] vocabulary() {
+        String[] words = new String[VOCABULARY_SIZE];
+        for (int i = 0; i < VOCABULARY_SIZE; i++) {
+            String[] syllables = i % 2 == 0 ? LATIN_SYLLABLES : CYRILLIC_SYLLABLES;
+            StringBuilder word = new StringBuilder();
+            // Запись номера слова в системе счисления по количеству слогов, не короче двух слогов.
+            for (int n = (i >> 1) + syllables.length; n > 0; n /= syllables.length) {
+                word.append(syllables[n % syllables.length]);
+            }
+            words[i] = word.toString();
+        }
+        return words;
+    }
+
+    private void insertUsers(Connection connection, int from, int to, SplittableRandom random) throws SQLException {
+        try (MultiRowInserter users = new MultiRowInserter(connection, "users",
+                "user_id, email, login, user_name, birthday", spec.getRowsPerStatement())) {
+            for (int id = from; id < to; id++) {
+                users.add(id, "user" + id + "@mail.ru", "user" + id, "User " + id,
+                        Date.valueOf(LocalDate.of(1950 + random.nextInt(60), 1 + random.nextInt(12),
+                                1 + random.nextInt(28))));
+            }
+        }
+    }
+
+    private long insertLikes(Connection connection, int from, int to, SplittableRandom random,
+                             ZipfSampler filmPopularity, AtomicIntegerArray likesByFilm) throws SQLException {
+        long inserted = 0;
+        int maxLikes = (int) Math.min(spec.getFilms(), spec.getLikesPerUser() * MAX_DEGREE_FACTOR);
+        int[] buffer = new int[Math.max(1, maxLikes)];
+        try (MultiRowInserter likes = new MultiRowInserter(connection, "film_likes",
+                "film_id, user_id", spec.getRowsPerStatement())) {
+            for (int userId = from; userId < to; userId++) {
+                int count = Math.min(maxLikes, exponential(random, spec.getLikesPerUser()));
+                for (int i = 0; i < count; i++) {
+                    buffer[i] = filmPopularity.sample(random);
+                }
+                SortedIntSet filmIds = SortedIntSet.copyOf(buffer, count);
+                for (int filmId : filmIds.toIntArray()) {
+                    likes.add(filmId, userId);
+                    likesByFilm.incrementAndGet(filmId);
+                }
+                inserted += filmIds.size();
+            }
+        }
+        return inserted;
+    }
+
+    private long insertFriends(Connection connection, int from, int to, SplittableRandom random,
+                               ZipfSampler userPopularity) throws SQLException {
+        long inserted = 0;
+        int maxFriends = (int) Math.min(spec.getUsers() - 1L, spec.getFriendsPerUser() * MAX_DEGREE_FACTOR);
+        int[] buffer = new int[Math.max(1, maxFriends)];
+        try (MultiRowInserter friends = new MultiRowInserter(connection, "friends",
+                "user_id, friend_id", spec.getRowsPerStatement())) {
+            for (int userId = from; userId < to; userId++) {
+                int count = Math.min(maxFriends, powerLaw(random, spec.getFriendsPerUser(),
+                        spec.getFriendsPowerLawAlpha()));
+                int size = 0;
+                for (int i = 0; i < count; i++) {
+                    int friendId = userPopularity.sample(random);
+                    if (friendId != userId) {
+                        buffer[size++] = friendId;
+                    }
+                }
+                SortedIntSet friendIds = SortedIntSet.copyOf(buffer, size);
+                for (int friendId : friendIds.toIntArray()) {
+                    friends.add(userId, friendId);
+                }
+                inserted += friendIds.size();
+            }
+        }
+        return inserted;
+    }
+
+    private void updateLikeCounts(AtomicIntegerArray likesByFilm) {
+        List<Object[]> args = new ArrayList<>();
+        for (int filmId = 1; filmId < likesByFilm.length(); filmId++) {
+            if (likesByFilm.get(filmId) > 0) {
+                args.add(new Object[]{likesByFilm.get(filmId), filmId});
+            }
+        }
+        jdbcTemplate.batchUpdate("UPDATE films SET likes_count = ? WHERE film_id = ?", args);
+    }
+
+    /**
+     * Разбивает диапазон ID [1, count] на части и заполняет их параллельно, каждую в своей транзакции.
+     */
+    private void runChunks(ExecutorService executor, int count, long stream, ChunkWriter writer) {
+        List<Future<?>> futures = new ArrayList<>();
+        int chunk = 0;
+        for (int from = 1; from <= count; from += spec.getRowsPerTask(), chunk++) {
+            int start = from;
+            int end = (int) Math.min(count + 1L, (long) from + spec.getRowsPerTask());
+            SplittableRandom random = new SplittableRandom(spec.getSeed() * 1_000_003L + stream * 65_537L + chunk);
+            futures.add(executor.submit(() -> jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                try {
+                    writer.write(connection, start, end, random);
+                    connection.commit();
+                } catch (SQLException | RuntimeException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+                return null;
+            })));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Генерация данных прервана", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Ошибка генерации данных", e.getCause());
+            }
+        }
+    }
+
+    private static int exponential(SplittableRandom random, double mean) {
+        return (int) Math.round(-mean * Math.log(1 - random.nextDouble()));
+    }
+
+    /**
+     * Случайная величина с распределением Парето и заданным средним.
+     */
+    private static int powerLaw(SplittableRandom random, double mean, double alpha) {
+        double minimum = mean * (alpha - 1) / alpha;
+        return (int) (minimum / Math.pow(1 - random.nextDouble(), 1 / alpha));
+    }
+
+    /**
+     * Количество вставленных строк по таблицам.
+     */
+    public record Summary(int films, int users, long likes, long friendships) {
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter {
+        void write(Connection connection, int from, int to, SplittableRandom random) throws SQLException;
+    }
+
+    /**
+     * Выборка значений 1..n с вероятностью, обратно пропорциональной рангу в степени s.
+     */
+    private static final class ZipfSampler {
+        private final double[] cumulative;
+
+        private ZipfSampler(int n, double exponent) {
+            cumulative = new double[n];
+            double sum = 0;
+            for (int rank = 1; rank <= n; rank++) {
+                sum += 1 / Math.pow(rank, exponent);
+                cumulative[rank - 1] = sum;
+            }
+            for (int i = 0; i < n; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+
+        private int sample(SplittableRandom random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            int rank = index >= 0 ? index : -index - 1;
+            return 1 + Math.min(rank, cumulative.length - 1);
+        }
+    }
+
+    /**
+     * Вставка строк многострочными INSERT, объединёнными в пакеты JDBC.
+     */
+    private static final class MultiRowInserter implements AutoCloseable {
+        // Количество многострочных INSERT в одном пакете JDBC.
+        private static final int STATEMENTS_PER_BATCH = 20;
+
+        private final Connection connection;
+        private final String table;
+        private final String columns;
+        private final int columnCount;
+        private final int rowsPerStatement;
+        private final Object[] values;
+        private PreparedStatement statement;
+        private int rows;
+        private int batched;
+
+        private MultiRowInserter(Connection connection, String table, String columns, int rowsPerStatement) {
+            this.connection = connection;
+            this.table = table;
+            this.columns = columns;
+            this.columnCount = columns.split(",").length;
+            this.rowsPerStatement = rowsPerStatement;
+            this.values = new Object[columnCount * rowsPerStatement];
+        }
+
+        private void add(Object... row) throws SQLException {
+            System.arraycopy(row, 0, values, rows * columnCount, columnCount);
+            if (++rows == rowsPerStatement) {
+                if (statement == null) {
+                    statement = connection.prepareStatement(sql(rowsPerStatement));
+                }
+                bind(statement, rows);
+                statement.addBatch();
+                rows = 0;
+                if (++batched == STATEMENTS_PER_BATCH) {
+                    statement.executeBatch();
+                    batched = 0;
+                }
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                if (statement != null && batched > 0) {
+                    statement.executeBatch();
+                }
+                if (rows > 0) {
+                    try (PreparedStatement tail = connection.prepareStatement(sql(rows))) {
+                        bind(tail, rows);
+                        tail.executeUpdate();
+                    }
+                }
+            } finally {
+                if (statement != null) {
+                    statement.close();
+                }
+            }
+        }
+
+        private void bind(PreparedStatement stmt, int rowCount) throws SQLException {
+            for (int i = 0; i < rowCount * columnCount; i++) {
+                stmt.setObject(i + 1, values[i]);
+            }
+        }
+
+        private String sql(int rowCount) {
+            String row = "(" + "?, ".repeat(columnCount - 1) + "?)";
+            StringBuilder sql = new StringBuilder("INSERT INTO ").append(table)
+                    .append(" (").append(columns).append(") VALUES ");
+            for (int i = 0; i < rowCount; i++) {
+                sql.append(i == 0 ? "" : ", ").append(row);
+            }
+            return sql.toString();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.dataset;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DatasetGeneratorTest {
+    private static final DatasetSpec SPEC = DatasetSpec.builder()
+            .films(500)
+            .users(2_000)
+            .likesPerUser(10)
+            .friendsPerUser(8)
+            .rowsPerStatement(50)
+            .rowsPerTask(300)
+            .build();
+
+    @Test
+    public void shouldGenerateSameDatasetForSameSeedRegardlessOfThreads() {
+        DataSource first = database("dataset1");
+        DataSource second = database("dataset2");
+
+        DatasetGenerator.Summary summary = new DatasetGenerator(first, SPEC.toBuilder().threads(4).build()).generate();
+        new DatasetGenerator(second, SPEC.toBuilder().threads(1).build()).generate();
+
+        assertThat(summary.likes()).isEqualTo(count(first, "film_likes"));
+        assertThat(summary.friendships()).isEqualTo(count(first, "friends"));
+        assertThat(count(first, "users")).isEqualTo(2_000);
+        assertThat(count(first, "films")).isEqualTo(500);
+        for (String sql : new String[]{
+                "SELECT SUM(CAST(film_id AS BIGINT) * 1000003 + user_id) FROM film_likes",
+                "SELECT SUM(CAST(user_id AS BIGINT) * 1000003 + friend_id) FROM friends",
+                "SELECT SUM(CAST(film_id AS BIGINT) * 7 + genre_id) FROM film_genres",
+                "SELECT SUM(DATEDIFF(DAY, DATE '1900-01-01', release_date) + duration * 31 + mpa_id) FROM films"}) {
+            assertThat(query(first, sql)).isEqualTo(query(second, sql));
+        }
+    }
+
+    @Test
+    public void shouldSkewLikesTowardsPopularFilmsAndKeepCountersConsistent() {
+        DataSource dataSource = database("dataset3");
+        new DatasetGenerator(dataSource, SPEC).generate();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        Long mismatched = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM films f WHERE f.likes_count <> " +
+                "(SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.film_id)", Long.class);
+        Long topFilmLikes = jdbcTemplate.queryForObject("SELECT likes_count FROM films WHERE film_id = 1", Long.class);
+        Long medianFilmLikes = jdbcTemplate.queryForObject("SELECT likes_count FROM films WHERE film_id = 250",
+                Long.class);
+        Long maxFollowers = jdbcTemplate.queryForObject("SELECT MAX(c) FROM " +
+                "(SELECT COUNT(*) AS c FROM friends GROUP BY friend_id)", Long.class);
+
+        assertThat(mismatched).isZero();
+        assertThat(topFilmLikes).isGreaterThan(medianFilmLikes * 20);
+        assertThat(maxFollowers).isGreaterThan(100L);
+    }
+
+    private static DataSource database(String name) {
+        SimpleDriverDataSource dataSource = new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        DatasetGenerator.initSchema(dataSource);
+        return dataSource;
+    }
+
+    private static long count(DataSource dataSource, String table) {
+        return query(dataSource, "SELECT COUNT(*) FROM " + table);
+    }
+
+    private static long query(DataSource dataSource, String sql) {
+        Long value = new JdbcTemplate(dataSource).queryForObject(sql, Long.class);
+        return value == null ? 0 : value;
+    }
+}
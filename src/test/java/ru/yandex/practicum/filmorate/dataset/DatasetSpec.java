@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.dataset;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Параметры синтетического набора данных для {@link DatasetGenerator}.
+ */
+@Getter
+@Builder(toBuilder = true)
+public class DatasetSpec {
+    // Количество фильмов и пользователей.
+    @Builder.Default
+    private final int films = 1_000;
+    @Builder.Default
+    private final int users = 1_000;
+    // Среднее количество лайков и друзей у пользователя.
+    @Builder.Default
+    private final double likesPerUser = 20;
+    @Builder.Default
+    private final double friendsPerUser = 10;
+    // Показатель распределения Ципфа для популярности фильмов и пользователей.
+    @Builder.Default
+    private final double zipfExponent = 1.0;
+    // Показатель степенного распределения количества друзей (alpha > 1).
+    @Builder.Default
+    private final double friendsPowerLawAlpha = 2.0;
+    @Builder.Default
+    private final long seed = 42;
+    @Builder.Default
+    private final int threads = Math.min(8, Runtime.getRuntime().availableProcessors());
+    // Количество строк в одном многострочном INSERT и количество строк, обрабатываемых одной задачей.
+    @Builder.Default
+    private final int rowsPerStatement = 500;
+    @Builder.Default
+    private final int rowsPerTask = 20_000;
+}
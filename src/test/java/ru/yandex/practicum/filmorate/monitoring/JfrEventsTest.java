@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.friend.FriendDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class JfrEventsTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserDbStorage userDbStorage;
+    @Autowired
+    private FriendDbStorage friendDbStorage;
+
+    @Test
+    public void requestAndSqlEventsAreRecorded() throws Exception {
+        userDbStorage.deleteAllUsers();
+        userDbStorage.resetUserIdSequence();
+        friendDbStorage.loadFriendGraph();
+        for (int i = 1; i <= 3; i++) {
+            User user = new User();
+            user.setEmail("jfr" + i + "@mail.ru");
+            user.setLogin("jfr" + i);
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            userService.createUser(user);
+        }
+        userService.addFriend(1, 2);
+        userService.addFriend(1, 3);
+
+        Path file = Files.createTempFile("filmorate", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(HttpRequestEvent.NAME).withoutThreshold();
+            recording.enable(SqlStatementEvent.NAME).withoutThreshold().withoutStackTrace();
+            recording.start();
+            mockMvc.perform(get("/users/1/friends")).andExpect(status().isOk());
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events;
+        try {
+            events = RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+
+        RecordedEvent request = events.stream()
+                .filter(event -> event.getEventType().getName().equals(HttpRequestEvent.NAME))
+                .filter(event -> event.getString("path").equals("/users/1/friends"))
+                .findFirst()
+                .orElseThrow();
+        assertThat(request.getString("method")).isEqualTo("GET");
+        assertThat(request.getString("uri")).isEqualTo("/users/{id}/friends");
+        assertThat(request.getInt("status")).isEqualTo(200);
+        assertThat(request.getInt("sqlStatements")).isPositive();
+
+        List<RecordedEvent> statements = events.stream()
+                .filter(event -> event.getEventType().getName().equals(SqlStatementEvent.NAME))
+                .filter(event -> event.getThread().getJavaThreadId() == request.getThread().getJavaThreadId())
+                .filter(event -> !event.getStartTime().isBefore(request.getStartTime())
+                        && !event.getEndTime().isAfter(request.getEndTime()))
+                .toList();
+        assertThat(statements).hasSize(request.getInt("sqlStatements"));
+        assertThat(statements).anySatisfy(event -> {
+            assertThat(event.getString("sql")).containsIgnoringCase("friend");
+            assertThat(event.getString("sqlId")).isEqualTo(Integer.toHexString(event.getString("sql").hashCode()));
+            assertThat(event.getString("operation")).isEqualTo("executeQuery");
+            assertThat(event.getLong("rows")).isEqualTo(2);
+        });
+    }
+}
@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверки количества SQL-выражений для тестов хранилищ и контроллеров.
+ */
+public final class SqlAssertions {
+
+    private SqlAssertions() {
+    }
+
+    /**
+     * Выполняет действие и возвращает количество SQL-выражений, выполненных в текущем потоке.
+     *
+     * @param action проверяемое действие
+     * @return количество выражений
+     */
+    public static int countStatements(Runnable action) {
+        try (SqlStatistics statistics = SqlStatistics.start()) {
+            action.run();
+            return statistics.getStatementCount();
+        }
+    }
+
+    /**
+     * Проверяет, что запрос MockMvc выполнил не больше указанного количества SQL-выражений.
+     *
+     * @param max допустимое количество выражений
+     * @return проверка результата запроса
+     */
+    public static ResultMatcher sqlStatementsAtMost(int max) {
+        return result -> {
+            String header = result.getResponse().getHeader(SqlStatisticsFilter.SQL_COUNT_HEADER);
+            assertThat(header).as("заголовок %s", SqlStatisticsFilter.SQL_COUNT_HEADER).isNotNull();
+            assertThat(Integer.parseInt(header)).as("количество SQL-выражений").isLessThanOrEqualTo(max);
+        };
+    }
+}
@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+public class StorageMetricsTest {
+    @Autowired
+    private GenreDbStorage genreDbStorage;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void storageMethodsAreTimed() {
+        assertThat(AopUtils.isCglibProxy(genreDbStorage)).isTrue();
+        genreDbStorage.getAllGenres();
+        genreDbStorage.getAllGenres();
+
+        Timer timer = meterRegistry.find(StorageMetricsInterceptor.METRIC_NAME)
+                .tags("storage", "GenreDbStorage", "method", "getAllGenres", "exception", "none")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    public void prometheusEndpointExposesHistogramsAndPercentiles() throws Exception {
+        mockMvc.perform(get("/genres")).andExpect(status().isOk());
+        genreDbStorage.getGenreById(1);
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(allOf(
+                        containsString("http_server_requests_seconds_bucket"),
+                        containsString("quantile=\"0.999\""),
+                        containsString("filmorate_storage_seconds_bucket"),
+                        containsString("method=\"getGenreById\""))));
+    }
+}
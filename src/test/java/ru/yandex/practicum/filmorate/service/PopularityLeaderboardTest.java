@@ -0,0 +1,187 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmFacets;
+import ru.yandex.practicum.filmorate.storage.film.FilmLikeDbStorage;
+import ru.yandex.practicum.filmorate.util.SortedIntSet;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PopularityLeaderboardTest {
+    private static final int FILMS = 20;
+
+    private FilmLikeDbStorage filmLikeDbStorage;
+    private FilmDbStorage filmDbStorage;
+    private PopularityLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        filmLikeDbStorage = Mockito.mock(FilmLikeDbStorage.class);
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int filmId = 1; filmId <= FILMS; filmId++) {
+            counts.put(filmId, 0);
+        }
+        Mockito.when(filmLikeDbStorage.getLikeCounts()).thenReturn(counts);
+        // Чётные фильмы вышли в 2000 году, нечётные — в 2001; фильмы 1-10 — жанр 1, остальные — жанр 2.
+        filmDbStorage = Mockito.mock(FilmDbStorage.class);
+        Map<Integer, FilmFacets> facets = new HashMap<>();
+        for (int filmId = 1; filmId <= FILMS; filmId++) {
+            facets.put(filmId, facets(filmId % 2 == 0 ? 2000 : 2001, filmId <= FILMS / 2 ? 1 : 2));
+        }
+        Mockito.when(filmDbStorage.getFilmFacets()).thenReturn(facets);
+        leaderboard = new PopularityLeaderboard(filmLikeDbStorage, filmDbStorage);
+        leaderboard.load();
+    }
+
+    @Test
+    public void shouldOrderByLikesThenById() {
+        leaderboard.increment(5);
+        leaderboard.increment(5);
+        leaderboard.increment(3);
+        leaderboard.increment(7);
+        leaderboard.decrement(7);
+
+        assertThat(leaderboard.getTopFilmIds(4)).containsExactly(5, 3, 1, 2);
+        assertThat(leaderboard.getLikes(5)).isEqualTo(2);
+        assertThat(leaderboard.getLikes(7)).isZero();
+    }
+
+    @Test
+    public void shouldDetectAndRepairMismatchWithDatabase() {
+        leaderboard.increment(1);
+        leaderboard.register(FILMS + 1, facets(2000, 1));
+        Map<Integer, Integer> actual = new HashMap<>();
+        for (int filmId = 1; filmId <= FILMS; filmId++) {
+            actual.put(filmId, 0);
+        }
+        actual.put(2, 3);
+        Mockito.when(filmLikeDbStorage.getLikeCounts()).thenReturn(actual);
+
+        // Первая сверка только запоминает расхождения, вторая исправляет подтвердившиеся.
+        assertThat(leaderboard.checkConsistency()).isZero();
+        assertThat(leaderboard.getLikes(2)).isZero();
+        assertThat(leaderboard.checkConsistency()).isEqualTo(3);
+        assertThat(leaderboard.checkConsistency()).isZero();
+        assertThat(leaderboard.getTopFilmIds(2)).containsExactly(2, 1);
+        assertThat(leaderboard.getTopFilmIds(FILMS + 1)).hasSize(FILMS);
+    }
+
+    @Test
+    public void shouldNotRepairMismatchOfLikeInFlight() {
+        // Лайк уже зафиксирован в БД, но ещё не учтён рейтингом.
+        Map<Integer, Integer> actual = new HashMap<>();
+        for (int filmId = 1; filmId <= FILMS; filmId++) {
+            actual.put(filmId, 0);
+        }
+        actual.put(1, 1);
+        Mockito.when(filmLikeDbStorage.getLikeCounts()).thenReturn(actual);
+
+        assertThat(leaderboard.checkConsistency()).isZero();
+        leaderboard.increment(1);
+        assertThat(leaderboard.checkConsistency()).isZero();
+        assertThat(leaderboard.getLikes(1)).isEqualTo(1);
+        assertThat(leaderboard.checkConsistency()).isZero();
+        assertThat(leaderboard.getLikes(1)).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldRankWithinGenreAndYear() {
+        leaderboard.increment(12);
+        leaderboard.increment(12);
+        leaderboard.increment(3);
+        leaderboard.increment(4);
+
+        assertThat(leaderboard.getTopFilmIds(3, 1, null)).containsExactly(3, 4, 1);
+        assertThat(leaderboard.getTopFilmIds(3, 2, null)).containsExactly(12, 11, 13);
+        assertThat(leaderboard.getTopFilmIds(3, null, 2000)).containsExactly(12, 4, 2);
+        assertThat(leaderboard.getTopFilmIds(3, 1, 2001)).containsExactly(3, 1, 5);
+        assertThat(leaderboard.getTopFilmIds(3, 99, null)).isEmpty();
+        assertThat(leaderboard.getTopFilmIds(3, null, 1999)).isEmpty();
+
+        // Смена жанров и года переносит фильм между рейтингами с сохранением лайков.
+        leaderboard.register(12, facets(1999, 1, 3));
+        assertThat(leaderboard.getTopFilmIds(2, 1, null)).containsExactly(12, 3);
+        assertThat(leaderboard.getTopFilmIds(1, 2, null)).containsExactly(11);
+        assertThat(leaderboard.getTopFilmIds(1, 3, 1999)).containsExactly(12);
+        assertThat(leaderboard.getTopFilmIds(1, null, 2000)).containsExactly(4);
+        assertThat(leaderboard.getLikes(12)).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldStayExactUnderConcurrentLikesAndUnlikes() throws Exception {
+        int threads = 16;
+        int operations = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        AtomicInteger[] expected = new AtomicInteger[FILMS + 1];
+        for (int filmId = 1; filmId <= FILMS; filmId++) {
+            expected[filmId] = new AtomicInteger();
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+
+        Future<Integer> reader = executor.submit(() -> {
+            start.await();
+            int reads = 0;
+            while (running.get()) {
+                List<Integer> top = leaderboard.getTopFilmIds(FILMS);
+                assertThat(top).doesNotHaveDuplicates().hasSize(FILMS);
+                reads++;
+            }
+            return reads;
+        });
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            writers.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                start.await();
+                for (int i = 0; i < operations; i++) {
+                    // Несколько "горячих" фильмов получают большую часть операций.
+                    int filmId = random.nextInt(4) == 0 ? 1 + random.nextInt(FILMS) : 1 + random.nextInt(3);
+                    if (random.nextInt(3) == 0) {
+                        leaderboard.decrement(filmId);
+                        expected[filmId].decrementAndGet();
+                    } else {
+                        leaderboard.increment(filmId);
+                        expected[filmId].incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(1, TimeUnit.MINUTES);
+        }
+        running.set(false);
+        assertThat(reader.get(1, TimeUnit.MINUTES)).isPositive();
+        executor.shutdown();
+
+        Map<Integer, Integer> actual = new HashMap<>();
+        for (int filmId = 1; filmId <= FILMS; filmId++) {
+            assertThat(leaderboard.getLikes(filmId)).isEqualTo(expected[filmId].get());
+            actual.put(filmId, expected[filmId].get());
+        }
+        assertThat(leaderboard.findMismatches(actual)).isEmpty();
+        List<Integer> expectedOrder = actual.keySet().stream()
+                .sorted(Comparator.comparing((Integer id) -> actual.get(id)).reversed().thenComparing(id -> id))
+                .toList();
+        assertThat(leaderboard.getTopFilmIds(FILMS)).isEqualTo(expectedOrder);
+        assertThat(leaderboard.getTopFilmIds(FILMS, 1, null))
+                .isEqualTo(expectedOrder.stream().filter(id -> id <= FILMS / 2).toList());
+        assertThat(leaderboard.getTopFilmIds(FILMS, null, 2000))
+                .isEqualTo(expectedOrder.stream().filter(id -> id % 2 == 0).toList());
+    }
+
+    private static FilmFacets facets(int year, int... genreIds) {
+        return new FilmFacets(year, SortedIntSet.copyOf(genreIds, genreIds.length));
+    }
+}
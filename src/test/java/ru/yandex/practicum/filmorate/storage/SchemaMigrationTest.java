@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет, что schema.sql дополняет БД, созданную до появления films.likes_count.
+ */
+public class SchemaMigrationTest {
+
+    @Test
+    public void shouldAddAndBackfillLikesCountOnce() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:legacy-schema;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE mpa (mpa_id INT PRIMARY KEY, mpa_name VARCHAR(255) NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE films (film_id INT PRIMARY KEY AUTO_INCREMENT, "
+                + "film_name VARCHAR(255) NOT NULL, description VARCHAR(200), release_date DATE, duration INT, "
+                + "mpa_id INT, FOREIGN KEY (mpa_id) REFERENCES mpa(mpa_id))");
+        jdbcTemplate.execute("CREATE TABLE users (user_id INT PRIMARY KEY AUTO_INCREMENT, "
+                + "email VARCHAR(255) NOT NULL UNIQUE, login VARCHAR(255) NOT NULL UNIQUE, "
+                + "user_name VARCHAR(255), birthday DATE)");
+        jdbcTemplate.execute("CREATE TABLE film_likes (film_id INT, user_id INT, PRIMARY KEY (film_id, user_id), "
+                + "FOREIGN KEY (film_id) REFERENCES films(film_id), FOREIGN KEY (user_id) REFERENCES users(user_id))");
+        jdbcTemplate.update("INSERT INTO films (film_name) VALUES ('A'), ('B')");
+        jdbcTemplate.update("INSERT INTO users (email, login) VALUES ('a@mail.ru', 'a'), ('b@mail.ru', 'b')");
+        jdbcTemplate.update("INSERT INTO film_likes (film_id, user_id) VALUES (1, 1), (1, 2)");
+
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("schema.sql"));
+        populator.execute(dataSource);
+        assertThat(likesCounts(jdbcTemplate)).containsExactly(2, 0);
+
+        // Повторный запуск не пересчитывает счётчики: они поддерживаются приложением.
+        jdbcTemplate.update("UPDATE films SET likes_count = 5 WHERE film_id = 1");
+        populator.execute(dataSource);
+        assertThat(likesCounts(jdbcTemplate)).containsExactly(5, 0);
+        jdbcTemplate.update("INSERT INTO films (film_name) VALUES ('C')");
+        assertThat(likesCounts(jdbcTemplate)).containsExactly(5, 0, 0);
+    }
+
+    private static List<Integer> likesCounts(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForList("SELECT likes_count FROM films ORDER BY film_id", Integer.class);
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+
+public class CachingFilmStorageTest {
+    private FilmStorage delegate;
+    private MeterRegistry meterRegistry;
+    private CachingFilmStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        delegate = Mockito.mock(FilmStorage.class);
+        meterRegistry = new SimpleMeterRegistry();
+        storage = new CachingFilmStorage(delegate, meterRegistry, 100, Duration.ofMinutes(1));
+        for (int id = 1; id <= 3; id++) {
+            Mockito.when(delegate.getFilmById(id)).thenReturn(Optional.of(film(id)));
+        }
+    }
+
+    @Test
+    public void shouldServeRepeatedReadsFromCacheAndInvalidateOnUpdate() {
+        storage.getFilmById(1);
+        storage.getFilmById(1);
+        assertThat(storage.getFilmById(42)).isEmpty();
+        Mockito.verify(delegate, Mockito.times(1)).getFilmById(1);
+
+        Film updated = film(1);
+        Mockito.when(delegate.updateFilm(updated)).thenReturn(updated);
+        storage.updateFilm(updated);
+        storage.getFilmById(1);
+        Mockito.verify(delegate, Mockito.times(2)).getFilmById(1);
+
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "films").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "films").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldLoadOnlyMissingFilmsInBatchAndKeepOrder() {
+        storage.getFilmById(2);
+        Mockito.when(delegate.getFilmsByIds(anyList())).thenReturn(List.of(film(1), film(3)));
+
+        List<Film> films = storage.getFilmsByIds(List.of(3, 2, 1, 7));
+
+        assertThat(films).extracting(Film::getId).containsExactly(3, 2, 1);
+        Mockito.verify(delegate).getFilmsByIds(Mockito.argThat(ids -> ids.size() == 3 && !ids.contains(2)));
+    }
+
+    @Test
+    public void shouldNotCacheFilmLoadedBeforeConcurrentEviction() {
+        Film stale = film(1);
+        Mockito.when(delegate.getFilmsByIds(anyList())).thenAnswer(invocation -> {
+            // Фильм изменяется и сбрасывается из кеша, пока пакет читает его старую версию.
+            storage.evict(1);
+            return List.of(stale);
+        });
+
+        assertThat(storage.getFilmsByIds(List.of(1))).extracting(Film::getName).containsExactly("Film 1");
+        Film fresh = film(1);
+        fresh.setName("Updated");
+        Mockito.when(delegate.getFilmById(1)).thenReturn(Optional.of(fresh));
+
+        assertThat(storage.getFilmById(1)).map(Film::getName).contains("Updated");
+    }
+
+    @Test
+    public void shouldHandOutCopiesOfCachedFilms() {
+        storage.getFilmById(1).orElseThrow().setLikesCount(100);
+        storage.getFilmsByIds(List.of(1)).get(0).setName("Changed");
+
+        Film cached = storage.getFilmById(1).orElseThrow();
+        assertThat(cached.getLikesCount()).isZero();
+        assertThat(cached.getName()).isEqualTo("Film 1");
+    }
+
+    private Film film(int id) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName("Film " + id);
+        return film;
+    }
+}
@@ -5,25 +5,33 @@ import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.FilmLikeResult;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.PopularityLeaderboard;
 import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
 import ru.yandex.practicum.filmorate.storage.mpa.MpaDbStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static ru.yandex.practicum.filmorate.monitoring.SqlAssertions.countStatements;
 
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 @SpringBootTest
-@Transactional
 @Slf4j
 public class FilmDbStorageTest {
 
@@ -42,6 +50,12 @@ public class FilmDbStorageTest {
     private FilmLikeDbStorage filmLikeDbStorage;
     @Autowired
     private FilmService filmService;
+    @Autowired
+    private PopularityLeaderboard leaderboard;
+    @Autowired
+    private FilmLikeIndex filmLikeIndex;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
 
     @BeforeEach
@@ -50,6 +64,8 @@ public class FilmDbStorageTest {
         filmDbStorage.resetFilmIdSequence(); // Сбрасываем счетчик film_id
         userDbStorage.deleteAllUsers(); // Удаляем всех пользователей
         userDbStorage.resetUserIdSequence(); // Сбрасываем счетчик user_id
+        filmLikeDbStorage.loadLikeIndex();
+        leaderboard.load();
     }
 
     @AfterEach
@@ -176,4 +192,286 @@ public class FilmDbStorageTest {
         assertThat(popularFilms).hasSize(1);
         assertThat(popularFilms.get(0).getName()).isEqualTo("Film 1");
     }
+
+    @Test
+    @Order(4)
+    public void testFilmQueriesUseConstantNumberOfStatements() {
+        addFilmsWithGenres(3);
+        int allFilmsStatements = countStatements(filmDbStorage::getAllFilms);
+        int popularStatements = countStatements(() -> filmDbStorage.getMostPopularFilms(100));
+        int byIdStatements = countStatements(() -> filmDbStorage.getFilmById(1));
+
+        addFilmsWithGenres(30);
+        List<Film> films = filmDbStorage.getAllFilms();
+        assertThat(films).hasSize(33).allSatisfy(film -> assertThat(film.getGenres()).hasSize(2));
+        assertThat(countStatements(filmDbStorage::getAllFilms)).isEqualTo(allFilmsStatements);
+        assertThat(countStatements(() -> filmDbStorage.getMostPopularFilms(100))).isEqualTo(popularStatements);
+        assertThat(countStatements(() -> filmDbStorage.getFilmById(1))).isEqualTo(byIdStatements);
+        assertThat(allFilmsStatements).isEqualTo(2);
+    }
+
+    @Test
+    @Order(5)
+    public void testLikeCounterDrivesPopularFilms() {
+        addFilmsWithGenres(2);
+        for (int i = 1; i <= 2; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@mail.com");
+            user.setLogin("user" + i);
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            userDbStorage.createUser(user);
+        }
+        filmLikeDbStorage.addLike(2, 1);
+        filmLikeDbStorage.addLike(2, 2);
+        filmLikeDbStorage.addLike(1, 1);
+
+        List<Film> popular = filmDbStorage.getMostPopularFilms(10);
+        assertThat(popular).extracting(Film::getId).containsExactly(2, 1);
+        assertThat(popular).extracting(Film::getLikesCount).containsExactly(2, 1);
+
+        filmLikeDbStorage.removeLike(2, 1);
+        filmLikeDbStorage.removeLike(2, 1);
+        filmLikeDbStorage.removeLike(2, 2);
+        assertThat(filmLikeDbStorage.getFilmLikes(2)).isZero();
+        assertThat(filmLikeDbStorage.getFilmLikes(999)).isZero();
+        assertThat(filmDbStorage.getMostPopularFilms(10)).extracting(Film::getId).containsExactly(1, 2);
+    }
+
+    @Test
+    @Order(6)
+    public void testStreamAllFilmsGroupsGenresPerFilm() {
+        addFilmsWithGenres(3);
+        Film withoutGenres = new Film();
+        withoutGenres.setName("No genres");
+        withoutGenres.setReleaseDate(LocalDate.of(2000, 1, 1));
+        withoutGenres.setDuration(90);
+        Mpa mpa = new Mpa();
+        mpa.setId(2);
+        withoutGenres.setMpa(mpa);
+        filmDbStorage.addFilm(withoutGenres);
+
+        List<Film> streamed = new ArrayList<>();
+        filmDbStorage.streamAllFilms(streamed::add);
+
+        assertThat(streamed).extracting(Film::getId).containsExactly(1, 2, 3, 4);
+        assertThat(streamed.subList(0, 3)).allSatisfy(film -> assertThat(film.getGenres()).hasSize(2));
+        assertThat(streamed.get(3).getGenres()).isEmpty();
+        assertThat(streamed.get(3).getMpa().getName()).isEqualTo("PG");
+    }
+
+    @Test
+    @Order(7)
+    public void testAddLikesBatchSkipsDuplicatesAndUnknownIds() {
+        addFilmsWithGenres(2);
+        for (int i = 1; i <= 2; i++) {
+            User user = new User();
+            user.setEmail("batch" + i + "@mail.com");
+            user.setLogin("batch" + i);
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            userDbStorage.createUser(user);
+        }
+
+        List<FilmLikeResult> results = filmService.addLikes(List.of(new FilmLike(1, 1), new FilmLike(1, 1),
+                new FilmLike(1, 2), new FilmLike(2, 1), new FilmLike(9, 1)));
+
+        assertThat(results).extracting(FilmLikeResult::getStatus).containsExactly(
+                FilmLikeResult.Status.CREATED, FilmLikeResult.Status.DUPLICATE, FilmLikeResult.Status.CREATED,
+                FilmLikeResult.Status.CREATED, FilmLikeResult.Status.NOT_FOUND);
+        assertThat(filmService.addLikes(List.of(new FilmLike(1, 1))))
+                .extracting(FilmLikeResult::getStatus).containsExactly(FilmLikeResult.Status.DUPLICATE);
+        assertThat(filmLikeDbStorage.getFilmLikes(1)).isEqualTo(2);
+        assertThat(filmLikeDbStorage.getFilmLikes(2)).isEqualTo(1);
+        assertThatThrownBy(() -> filmService.addLikes(Arrays.asList(new FilmLike(2, 2), null)))
+                .isInstanceOf(ValidationException.class);
+        assertThat(filmLikeDbStorage.getFilmLikes(2)).isEqualTo(1);
+    }
+
+    @Test
+    @Order(8)
+    public void testRecommendationsFollowLikeChanges() {
+        addFilmsWithGenres(4);
+        for (int i = 1; i <= 3; i++) {
+            User user = new User();
+            user.setEmail("rec" + i + "@mail.com");
+            user.setLogin("rec" + i);
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            userDbStorage.createUser(user);
+        }
+        filmService.addLike(1, 1);
+        filmService.addLike(2, 1);
+        filmService.addLike(1, 2);
+        filmService.addLike(2, 2);
+        filmService.addLike(3, 2);
+        filmService.addLikes(List.of(new FilmLike(1, 3), new FilmLike(4, 3)));
+
+        assertThat(filmService.getRecommendations(1, 10)).extracting(Film::getId).containsExactly(3, 4);
+        assertThat(filmService.getRecommendations(1, 1)).extracting(Film::getId).containsExactly(3);
+
+        filmService.removeLike(3, 2);
+
+        assertThat(filmService.getRecommendations(1, 10)).extracting(Film::getId).containsExactly(4);
+    }
+
+    @Test
+    @Order(9)
+    public void testSearchFollowsAddAndUpdate() {
+        Mpa mpa = new Mpa();
+        mpa.setId(1);
+        String[][] texts = {
+                {"Ёжик в тумане", "Мультфильм о дружбе"},
+                {"Туманность Андромеды", "Фантастика"},
+                {"Солярис", "Океан и туман далёкой планеты"}
+        };
+        for (String[] text : texts) {
+            Film film = new Film();
+            film.setName(text[0]);
+            film.setDescription(text[1]);
+            film.setReleaseDate(LocalDate.of(1970, 1, 1));
+            film.setDuration(100);
+            film.setMpa(mpa);
+            filmService.addFilm(film);
+        }
+
+        assertThat(filmService.searchFilms("ТУМАН", 10)).extracting(Film::getId).containsExactly(1, 2, 3);
+        assertThat(filmService.searchFilms("ежик туман", 10)).extracting(Film::getId).containsExactly(1);
+        assertThat(filmService.searchFilms("далекой", 10)).extracting(Film::getId).containsExactly(3);
+
+        Film updated = filmDbStorage.getFilmById(3).orElseThrow();
+        updated.setDescription("Океан разумной планеты");
+        filmService.updateFilm(updated);
+
+        assertThat(filmService.searchFilms("туман", 10)).extracting(Film::getId).containsExactly(1, 2);
+        assertThat(filmService.searchFilms("разум", 10)).extracting(Film::getId).containsExactly(3);
+    }
+
+    @Test
+    @Order(10)
+    public void testPopularFilmsFilteredByGenreAndYear() {
+        addFilmsWithGenres(3);
+        User user = new User();
+        user.setEmail("genre@mail.com");
+        user.setLogin("genre");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        userDbStorage.createUser(user);
+        leaderboard.load();
+        filmService.addLike(2, 1);
+
+        Film film = filmDbStorage.getFilmById(3).orElseThrow();
+        film.setReleaseDate(LocalDate.of(1999, 5, 5));
+        Genre thriller = new Genre();
+        thriller.setId(4);
+        film.getGenres().clear();
+        film.getGenres().add(thriller);
+        filmService.updateFilm(film);
+
+        assertThat(filmService.getMostPopularFilms(10, 1, null)).extracting(Film::getId).containsExactly(2, 1);
+        assertThat(filmService.getMostPopularFilms(10, 4, null)).extracting(Film::getId).containsExactly(3);
+        assertThat(filmService.getMostPopularFilms(10, null, 2000)).extracting(Film::getId).containsExactly(2, 1);
+        assertThat(filmService.getMostPopularFilms(10, 4, 2000)).isEmpty();
+        assertThat(filmService.getMostPopularFilms(10, null, 1999)).extracting(Film::getId).containsExactly(3);
+
+        leaderboard.load();
+        assertThat(filmService.getMostPopularFilms(10, 4, 1999)).extracting(Film::getId).containsExactly(3);
+        assertThat(filmService.getMostPopularFilms(1, 2, 2000)).extracting(Film::getId).containsExactly(2);
+    }
+
+    @Test
+    @Order(11)
+    public void testRolledBackFilmIsNotIndexed() {
+        Mpa mpa = new Mpa();
+        mpa.setId(1);
+        Film film = new Film();
+        film.setName("Откатный фильм");
+        film.setDescription("Не должен попасть в индексы");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        film.setMpa(mpa);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            filmDbStorage.addFilm(film);
+            status.setRollbackOnly();
+        });
+
+        assertThat(countStatements(() -> assertThat(filmDbStorage.existsById(film.getId())).isFalse()))
+                .isEqualTo(1);
+        assertThat(filmService.searchFilms("откатный", 10)).isEmpty();
+    }
+
+    @Test
+    @Order(12)
+    public void testDeleteAllFilmsResetsLeaderboardAndLikeIndex() {
+        addFilmsThroughService(3);
+        User user = new User();
+        user.setEmail("deleted@mail.com");
+        user.setLogin("deleted");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        userDbStorage.createUser(user);
+        filmService.addLike(1, user.getId());
+        filmService.addLike(2, user.getId());
+        assertThat(filmService.getFilmById(1).getLikesCount()).isEqualTo(1);
+
+        filmDbStorage.deleteAllFilms();
+        filmDbStorage.resetFilmIdSequence();
+        addFilmsThroughService(2);
+
+        assertThat(filmService.getMostPopularFilms(10, null, null)).extracting(Film::getId).containsExactly(1, 2);
+        assertThat(filmService.getFilmById(1).getLikesCount()).isZero();
+        assertThat(filmLikeIndex.getFilmIds(user.getId())).isEmpty();
+    }
+
+    @Test
+    @Order(13)
+    public void testDeleteAllUsersResetsLikes() {
+        addFilmsThroughService(3);
+        User user = new User();
+        user.setEmail("liker@mail.com");
+        user.setLogin("liker");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        userDbStorage.createUser(user);
+        filmService.addLike(3, user.getId());
+        filmService.addLike(2, user.getId());
+        assertThat(filmService.getMostPopularFilms(2, null, null)).extracting(Film::getId).containsExactly(2, 3);
+        assertThat(filmService.getFilmById(3).getLikesCount()).isEqualTo(1);
+        String eTag = filmService.getFilmETag(3);
+
+        userDbStorage.deleteAllUsers();
+
+        assertThat(filmLikeDbStorage.getFilmLikes(3)).isZero();
+        assertThat(filmService.getFilmById(3).getLikesCount()).isZero();
+        assertThat(filmService.getMostPopularFilms(2, null, null)).extracting(Film::getId).containsExactly(1, 2);
+        assertThat(filmLikeIndex.getFilmIds(user.getId())).isEmpty();
+        assertThat(filmService.getFilmETag(3)).isNotEqualTo(eTag);
+    }
+
+    private void addFilmsThroughService(int count) {
+        Mpa mpa = new Mpa();
+        mpa.setId(1);
+        for (int i = 0; i < count; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, 1));
+            film.setDuration(100);
+            film.setMpa(mpa);
+            filmService.addFilm(film);
+        }
+    }
+
+    private void addFilmsWithGenres(int count) {
+        Mpa mpa = new Mpa();
+        mpa.setId(1);
+        for (int i = 0; i < count; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setDescription("Description " + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, 1));
+            film.setDuration(100);
+            film.setMpa(mpa);
+            Genre comedy = new Genre();
+            comedy.setId(1);
+            Genre drama = new Genre();
+            drama.setId(2);
+            film.getGenres().add(comedy);
+            film.getGenres().add(drama);
+            filmDbStorage.addFilm(film);
+        }
+    }
 }
@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет запись лайков при параллельной записи того же лайка и откате транзакции.
+ * Тест работает без общей транзакции, чтобы транзакции действительно фиксировались.
+ */
+@SpringBootTest
+public class FilmLikeDbStorageTest {
+    private static final int FILM_ID = 1_000_001;
+    private static final int FIRST_USER_ID = 1_000_001;
+
+    @Autowired
+    private FilmLikeDbStorage filmLikeDbStorage;
+    @Autowired
+    private FilmLikeIndex filmLikeIndex;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void insertFilmAndUsers() {
+        jdbcTemplate.update("INSERT INTO films (film_id, film_name, mpa_id) VALUES (?, 'Гонка', 1)", FILM_ID);
+        for (int userId = FIRST_USER_ID; userId < FIRST_USER_ID + 3; userId++) {
+            jdbcTemplate.update("INSERT INTO users (user_id, email, login) VALUES (?, ?, ?)",
+                    userId, "race" + userId + "@mail.ru", "race" + userId);
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM film_likes WHERE film_id = ?", FILM_ID);
+        jdbcTemplate.update("DELETE FROM films WHERE film_id = ?", FILM_ID);
+        jdbcTemplate.update("DELETE FROM users WHERE user_id >= ?", FIRST_USER_ID);
+        filmLikeDbStorage.loadLikeIndex();
+    }
+
+    @Test
+    public void batchSkipsLikeInsertedConcurrently() throws Exception {
+        CountDownLatch inserted = new CountDownLatch(1);
+        CompletableFuture<Void> concurrent = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    filmLikeDbStorage.addLike(FILM_ID, FIRST_USER_ID + 1);
+                    inserted.countDown();
+                    // Пакет не видит незафиксированный лайк и упирается в первичный ключ после фиксации.
+                    sleep(300);
+                }));
+        assertThat(inserted.await(10, TimeUnit.SECONDS)).isTrue();
+
+        boolean[] added = filmLikeDbStorage.addLikes(List.of(new FilmLike(FILM_ID, FIRST_USER_ID),
+                new FilmLike(FILM_ID, FIRST_USER_ID + 1), new FilmLike(FILM_ID, FIRST_USER_ID + 2)));
+        concurrent.get(10, TimeUnit.SECONDS);
+
+        assertThat(added).containsExactly(true, false, true);
+        assertThat(filmLikeDbStorage.getFilmLikes(FILM_ID)).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM film_likes WHERE film_id = ?",
+                Integer.class, FILM_ID)).isEqualTo(3);
+    }
+
+    @Test
+    public void indexIgnoresRolledBackLikes() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            filmLikeDbStorage.addLike(FILM_ID, FIRST_USER_ID);
+            filmLikeDbStorage.addLikes(List.of(new FilmLike(FILM_ID, FIRST_USER_ID + 1)));
+            assertThat(filmLikeIndex.getFilmIds(FIRST_USER_ID)).isEmpty();
+            status.setRollbackOnly();
+        });
+        assertThat(filmLikeIndex.getFilmIds(FIRST_USER_ID)).isEmpty();
+        assertThat(filmLikeIndex.getFilmIds(FIRST_USER_ID + 1)).isEmpty();
+
+        filmLikeDbStorage.addLike(FILM_ID, FIRST_USER_ID);
+        transaction.executeWithoutResult(status -> {
+            filmLikeDbStorage.removeLike(FILM_ID, FIRST_USER_ID);
+            status.setRollbackOnly();
+        });
+        assertThat(filmLikeIndex.getFilmIds(FIRST_USER_ID)).containsExactly(FILM_ID);
+        assertThat(filmLikeDbStorage.hasLike(FILM_ID, FIRST_USER_ID)).isTrue();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FilmLikeIndexTest {
+
+    @Test
+    public void shouldRecommendFilmsOfMostSimilarUsers() {
+        FilmLikeIndex index = new FilmLikeIndex();
+        // Пользователь 1 оценил фильмы 1-3, пользователь 2 совпадает с ним по трём фильмам, пользователь 3 — по одному.
+        for (int filmId = 1; filmId <= 3; filmId++) {
+            index.addLike(filmId, 1);
+            index.addLike(filmId, 2);
+        }
+        index.addLike(10, 2);
+        index.addLike(11, 2);
+        index.addLike(1, 3);
+        index.addLike(11, 3);
+        index.addLike(12, 3);
+        index.addLike(5, 4);
+
+        assertThat(index.recommendFilms(1, 10)).containsExactly(11, 10, 12);
+        assertThat(index.recommendFilms(1, 1)).containsExactly(11);
+        assertThat(index.recommendFilms(4, 10)).isEmpty();
+        assertThat(index.recommendFilms(99, 10)).isEmpty();
+
+        index.removeLike(11, 2);
+        index.removeLike(11, 3);
+
+        assertThat(index.recommendFilms(1, 10)).containsExactly(10, 12);
+        assertThat(index.getFilmIds(3)).containsExactly(1, 12);
+    }
+}
@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FilmSearchIndexTest {
+
+    @Test
+    public void shouldTokenizeRussianAndEnglishText() {
+        assertThat(FilmSearchIndex.tokenize("Ёлки-2: Новый ГОД, New Year's Eve!"))
+                .containsExactly("елки", "2", "новый", "год", "new", "year", "s", "eve");
+        assertThat(FilmSearchIndex.tokenize(" ,.- ")).isEmpty();
+        assertThat(FilmSearchIndex.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    public void shouldRankByNameMatchesThenPopularity() {
+        FilmSearchIndex index = new FilmSearchIndex();
+        index.index(1, "Matrix", "Neo enters the matrix");
+        index.index(2, "The Matrix Reloaded", "Sequel");
+        index.index(3, "Inception", "A dream within the matrix of dreams");
+        index.index(4, "Matrixes", null);
+        Map<Integer, Integer> likes = Map.of(1, 5, 2, 50, 3, 100, 4, 1);
+
+        // Точное совпадение слова в названии, затем совпадение по префиксу, затем только в описании.
+        assertThat(index.search("matrix", 10, id -> likes.getOrDefault(id, 0))).containsExactly(2, 1, 4, 3);
+        assertThat(index.search("the mat", 10, id -> likes.getOrDefault(id, 0))).containsExactly(2, 1, 3);
+        assertThat(index.search("matrix", 2, id -> likes.getOrDefault(id, 0))).containsExactly(2, 1);
+        assertThat(index.search("dream", 10, id -> 0)).containsExactly(3);
+        assertThat(index.search("unknown matrix", 10, id -> 0)).isEmpty();
+        assertThat(index.search("!!!", 10, id -> 0)).isEmpty();
+    }
+
+    @Test
+    public void shouldReplaceTokensOnUpdateAndLoad() {
+        FilmSearchIndex index = new FilmSearchIndex();
+        index.index(1, "Old title", "Shared words");
+        index.index(2, "Other", "Shared words");
+
+        index.index(1, "New title", "Shared words");
+        assertThat(index.search("old", 10, id -> 0)).isEmpty();
+        assertThat(index.search("new", 10, id -> 0)).containsExactly(1);
+        assertThat(index.search("shared", 10, id -> 0)).containsExactly(1, 2);
+
+        index.remove(2);
+        assertThat(index.search("shared", 10, id -> 0)).containsExactly(1);
+
+        FilmSearchIndex.Loader loader = index.loader();
+        loader.add(5, "Loaded", "Text");
+        loader.add(7, "Loaded again", "Text");
+        loader.finish();
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.search("loaded", 10, id -> 0)).containsExactly(5, 7);
+        assertThat(index.search("new", 10, id -> 0)).isEmpty();
+    }
+
+    @Test
+    public void shouldKeepServingAndKeepConcurrentUpdatesWhileLoading() {
+        FilmSearchIndex index = new FilmSearchIndex();
+        index.index(1, "Old film", "Text");
+        FilmSearchIndex.Loader loader = index.loader();
+        loader.add(1, "Old film", "Text");
+        loader.add(2, "Stale film", "Text");
+
+        // До замены поиск работает по прежнему индексу.
+        assertThat(index.search("old", 10, id -> 0)).containsExactly(1);
+        index.index(3, "Added film", "Text");
+        index.index(2, "Renamed film", "Text");
+        index.remove(1);
+        loader.finish();
+
+        assertThat(index.search("film", 10, id -> 0)).containsExactly(2, 3);
+        assertThat(index.search("stale", 10, id -> 0)).isEmpty();
+        assertThat(index.search("renamed", 10, id -> 0)).containsExactly(2);
+        assertThat(index.search("old", 10, id -> 0)).isEmpty();
+
+        FilmSearchIndex.Loader discarded = index.loader();
+        discarded.add(2, "Renamed film", "Text");
+        index.clear();
+        discarded.finish();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    public void shouldNotSeePartiallyUpdatedFilm() {
+        FilmSearchIndex index = new FilmSearchIndex();
+        index.index(1, "alpha beta", null);
+        AtomicBoolean done = new AtomicBoolean();
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 20_000; i++) {
+                index.index(1, i % 2 == 0 ? "gamma delta" : "alpha beta", null);
+            }
+            done.set(true);
+        });
+
+        // Фильм содержит либо старые слова, либо новые, но не их смесь.
+        while (!done.get()) {
+            assertThat(index.search("alpha delta", 10, id -> 0)).isEmpty();
+            assertThat(index.search("gamma beta", 10, id -> 0)).isEmpty();
+        }
+        writer.join();
+    }
+}
@@ -0,0 +1,123 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+
+public class LikeWriteBufferTest {
+    private FilmLikeDbStorage filmLikeDbStorage;
+    private FilmLikeIndex filmLikeIndex;
+    private LikeWriteBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        filmLikeDbStorage = Mockito.mock(FilmLikeDbStorage.class);
+        Mockito.when(filmLikeDbStorage.hasLike(anyInt(), anyInt())).thenReturn(false);
+        filmLikeIndex = new FilmLikeIndex();
+        buffer = new LikeWriteBuffer(filmLikeDbStorage, filmLikeIndex, true, Duration.ofSeconds(1), 1000);
+    }
+
+    @Test
+    public void shouldCancelOppositeOperationsOnSamePair() {
+        assertThat(buffer.like(1, 1)).isTrue();
+        assertThat(buffer.like(1, 1)).isFalse();
+        assertThat(buffer.hasLike(1, 1)).isTrue();
+        assertThat(buffer.unlike(1, 1)).isTrue();
+        assertThat(buffer.getPendingCount()).isZero();
+        assertThat(buffer.hasLike(1, 1)).isFalse();
+
+        buffer.flush();
+        Mockito.verify(filmLikeDbStorage, Mockito.never()).applyLikes(anyList(), anyList());
+    }
+
+    @Test
+    public void shouldWriteNetChangesInBatches() {
+        Mockito.when(filmLikeDbStorage.hasLike(2, 1)).thenReturn(true);
+        buffer.like(1, 1);
+        buffer.like(1, 2);
+        buffer.unlike(2, 1);
+        buffer.unlike(3, 1);
+
+        buffer.flush();
+
+        Mockito.verify(filmLikeDbStorage).applyLikes(Mockito.argThat(likes ->
+                        likes.size() == 2 && likes.containsAll(List.of(new FilmLike(1, 1), new FilmLike(1, 2)))),
+                Mockito.eq(List.of(new FilmLike(2, 1))));
+        assertThat(buffer.getPendingCount()).isZero();
+    }
+
+    @Test
+    public void shouldKeepChangesWhenFlushFails() {
+        Mockito.doThrow(new IllegalStateException("БД недоступна"))
+                .when(filmLikeDbStorage).applyLikes(anyList(), anyList());
+        buffer.like(1, 1);
+
+        assertThatThrownBy(buffer::flush).isInstanceOf(IllegalStateException.class);
+
+        assertThat(buffer.getPendingCount()).isEqualTo(1);
+        assertThat(buffer.hasLike(1, 1)).isTrue();
+    }
+
+    @Test
+    public void shouldCancelToggleMadeDuringFailedFlush() {
+        Mockito.when(filmLikeDbStorage.hasLike(2, 1)).thenReturn(true);
+        buffer.like(1, 1);
+        buffer.unlike(2, 1);
+        // Пока пакет записывается, пользователь снимает только что поставленный лайк,
+        // после чего удаление лайков падает и транзакция откатывается вместе с добавлением.
+        Mockito.doAnswer(invocation -> {
+            assertThat(buffer.unlike(1, 1)).isTrue();
+            throw new IllegalStateException("removeLikes: БД недоступна");
+        }).when(filmLikeDbStorage).applyLikes(anyList(), anyList());
+
+        assertThatThrownBy(buffer::flush).isInstanceOf(IllegalStateException.class);
+
+        assertThat(buffer.hasLike(1, 1)).isFalse();
+        assertThat(buffer.hasLike(2, 1)).isFalse();
+        assertThat(buffer.getPendingCount()).isEqualTo(1);
+
+        Mockito.doNothing().when(filmLikeDbStorage).applyLikes(anyList(), anyList());
+        buffer.flush();
+        Mockito.verify(filmLikeDbStorage).applyLikes(List.of(), List.of(new FilmLike(2, 1)));
+    }
+
+    @Test
+    public void shouldFlushOverflowInBackgroundAndNotFailRequest() throws InterruptedException {
+        LikeWriteBuffer small = new LikeWriteBuffer(filmLikeDbStorage, filmLikeIndex, true, Duration.ofHours(1), 2);
+        Mockito.doThrow(new IllegalStateException("БД недоступна"))
+                .when(filmLikeDbStorage).applyLikes(anyList(), anyList());
+        small.start();
+        try {
+            assertThat(small.like(1, 1)).isTrue();
+            assertThat(small.like(1, 2)).isTrue();
+
+            Mockito.verify(filmLikeDbStorage, Mockito.timeout(5000)).applyLikes(anyList(), anyList());
+            assertThat(small.hasLike(1, 1)).isTrue();
+        } finally {
+            Mockito.doNothing().when(filmLikeDbStorage).applyLikes(anyList(), anyList());
+            small.stop();
+        }
+        assertThat(small.getPendingCount()).isZero();
+    }
+
+    @Test
+    public void shouldReadPersistedStateFromLoadedIndex() {
+        filmLikeIndex.addLike(2, 1);
+        filmLikeIndex.markLoaded();
+
+        assertThat(buffer.like(2, 1)).isFalse();
+        assertThat(buffer.unlike(2, 1)).isTrue();
+        assertThat(buffer.like(3, 1)).isTrue();
+
+        Mockito.verify(filmLikeDbStorage, Mockito.never()).hasLike(anyInt(), anyInt());
+    }
+}
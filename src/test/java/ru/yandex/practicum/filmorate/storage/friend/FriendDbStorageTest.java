@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.storage.friend;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.monitoring.SqlAssertions.countStatements;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+public class FriendDbStorageTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UserDbStorage userDbStorage;
+    @Autowired
+    private FriendDbStorage friendDbStorage;
+
+    @BeforeEach
+    public void resetDatabase() {
+        userDbStorage.deleteAllUsers();
+        userDbStorage.resetUserIdSequence();
+        for (int i = 1; i <= 6; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@example.com");
+            user.setLogin("user" + i);
+            user.setBirthday(LocalDate.of(1990, 1, i));
+            userDbStorage.createUser(user);
+        }
+    }
+
+    @Test
+    public void testCommonFriendsFollowAddAndRemove() {
+        friendDbStorage.addFriend(1, 3);
+        friendDbStorage.addFriend(1, 4);
+        friendDbStorage.addFriend(1, 5);
+        friendDbStorage.addFriend(2, 5);
+        friendDbStorage.addFriend(2, 4);
+        friendDbStorage.addFriend(2, 6);
+
+        assertThat(friendDbStorage.getCommonFriends(1, 2)).extracting(User::getId).containsExactly(4, 5);
+
+        friendDbStorage.removeFriend(2, 4);
+
+        assertThat(friendDbStorage.getCommonFriends(1, 2)).extracting(User::getId).containsExactly(5);
+        assertThat(friendDbStorage.getCommonFriends(1, 6)).isEmpty();
+    }
+
+    @Test
+    public void testCommonFriendsLoadedFromDatabaseInSingleStatement() {
+        jdbcTemplate.update("INSERT INTO friends (user_id, friend_id) VALUES (1, 2), (1, 3), (1, 6), (4, 6), (4, 3)");
+        friendDbStorage.loadFriendGraph();
+        List<User> commonFriends = new ArrayList<>();
+
+        assertThat(countStatements(() -> commonFriends.addAll(friendDbStorage.getCommonFriends(1, 4)))).isEqualTo(1);
+        assertThat(commonFriends).extracting(User::getId).containsExactly(3, 6);
+        assertThat(countStatements(() -> assertThat(friendDbStorage.getCommonFriends(1, 5)).isEmpty())).isZero();
+    }
+}
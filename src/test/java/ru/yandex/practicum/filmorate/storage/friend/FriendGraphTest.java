@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate.storage.friend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FriendGraphTest {
+
+    @Test
+    public void shouldRankSuggestionsByMutualFriends() {
+        FriendGraph graph = new FriendGraph();
+        graph.addFriend(1, 2);
+        graph.addFriend(1, 3);
+        graph.addFriend(1, 4);
+        graph.addFriend(2, 5);
+        graph.addFriend(2, 6);
+        graph.addFriend(2, 1);
+        graph.addFriend(3, 6);
+        graph.addFriend(3, 4);
+        graph.addFriend(4, 6);
+        graph.addFriend(4, 7);
+
+        assertThat(graph.suggestFriends(1, 10)).containsExactly(6, 5, 7);
+        assertThat(graph.suggestFriends(1, 2)).containsExactly(6, 5);
+        assertThat(graph.suggestFriends(5, 10)).isEmpty();
+    }
+
+    @Test
+    public void shouldMatchNaiveRankingOnRandomGraph() {
+        FriendGraph graph = new FriendGraph();
+        Random random = new Random(42);
+        int users = 300;
+        boolean[][] edges = new boolean[users + 1][users + 1];
+        for (int i = 0; i < 5000; i++) {
+            int from = 1 + random.nextInt(users);
+            int to = 1 + random.nextInt(users);
+            if (from != to) {
+                graph.addFriend(from, to);
+                edges[from][to] = true;
+            }
+        }
+
+        int userId = 7;
+        int[] mutual = new int[users + 1];
+        for (int friend = 1; friend <= users; friend++) {
+            if (edges[userId][friend]) {
+                for (int candidate = 1; candidate <= users; candidate++) {
+                    if (edges[friend][candidate] && candidate != userId && !edges[userId][candidate]) {
+                        mutual[candidate]++;
+                    }
+                }
+            }
+        }
+        int[] suggestions = graph.suggestFriends(userId, 20);
+
+        assertThat(suggestions).hasSize(20);
+        for (int i = 1; i < suggestions.length; i++) {
+            int previous = mutual[suggestions[i - 1]];
+            int current = mutual[suggestions[i]];
+            assertThat(previous > current || previous == current && suggestions[i - 1] < suggestions[i]).isTrue();
+        }
+        int weakestIncluded = mutual[suggestions[suggestions.length - 1]];
+        for (int candidate = 1; candidate <= users; candidate++) {
+            if (mutual[candidate] > weakestIncluded) {
+                assertThat(suggestions).contains(candidate);
+            }
+        }
+    }
+}
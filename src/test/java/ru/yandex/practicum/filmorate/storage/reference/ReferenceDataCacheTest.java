@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.storage.reference;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReferenceDataCacheTest {
+
+    @Test
+    public void shouldServeReferenceDataFromMemoryUntilRefreshed() {
+        GenreStorage genreStorage = Mockito.mock(GenreStorage.class);
+        MpaStorage mpaStorage = Mockito.mock(MpaStorage.class);
+        Mockito.when(genreStorage.getAllGenres()).thenReturn(List.of(genre(1, "Комедия"), genre(3, "Мультфильм")));
+        Mockito.when(mpaStorage.getAllMpa()).thenReturn(List.of(mpa(1, "G")));
+        ReferenceDataCache cache = new ReferenceDataCache(genreStorage, mpaStorage);
+        cache.refresh();
+
+        assertThat(cache.getGenreById(3)).get().extracting(Genre::getName).isEqualTo("Мультфильм");
+        assertThat(cache.getGenreById(2)).isEmpty();
+        assertThat(cache.getGenreById(-1)).isEmpty();
+        assertThat(cache.getGenreById(100)).isEmpty();
+        assertThat(cache.getAllGenres()).hasSize(2);
+        assertThat(cache.getMpaById(1)).get().extracting(Mpa::getName).isEqualTo("G");
+        cache.getAllMpa();
+        cache.getMpaById(5);
+        Mockito.verify(mpaStorage, Mockito.times(1)).getAllMpa();
+
+        Mockito.when(mpaStorage.getAllMpa()).thenReturn(List.of(mpa(1, "G"), mpa(5, "NC-17")));
+        cache.refresh();
+        assertThat(cache.getMpaById(5)).isPresent();
+    }
+
+    @Test
+    public void shouldNotExposeCachedInstances() {
+        GenreStorage genreStorage = Mockito.mock(GenreStorage.class);
+        MpaStorage mpaStorage = Mockito.mock(MpaStorage.class);
+        Mockito.when(genreStorage.getAllGenres()).thenReturn(List.of(genre(1, "Комедия")));
+        Mockito.when(mpaStorage.getAllMpa()).thenReturn(List.of(mpa(1, "G")));
+        ReferenceDataCache cache = new ReferenceDataCache(genreStorage, mpaStorage);
+        cache.refresh();
+
+        cache.getGenreById(1).orElseThrow().setName("Изменено");
+        cache.getAllGenres().get(0).setName("Изменено");
+        cache.getMpaById(1).orElseThrow().setName("Изменено");
+        cache.getAllMpa().get(0).setName("Изменено");
+
+        assertThat(cache.getGenreById(1)).get().extracting(Genre::getName).isEqualTo("Комедия");
+        assertThat(cache.getAllGenres()).extracting(Genre::getName).containsExactly("Комедия");
+        assertThat(cache.getMpaById(1)).get().extracting(Mpa::getName).isEqualTo("G");
+        assertThat(cache.getAllMpa()).extracting(Mpa::getName).containsExactly("G");
+    }
+
+    private Genre genre(int id, String name) {
+        Genre genre = new Genre();
+        genre.setId(id);
+        genre.setName(name);
+        return genre;
+    }
+
+    private Mpa mpa(int id, String name) {
+        Mpa mpa = new Mpa();
+        mpa.setId(id);
+        mpa.setName(name);
+        return mpa;
+    }
+}
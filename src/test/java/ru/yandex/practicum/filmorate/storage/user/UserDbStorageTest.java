@@ -6,12 +6,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.util.SortedIntSet;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.monitoring.SqlAssertions.countStatements;
 
 @SpringBootTest
 @AutoConfigureTestDatabase
@@ -20,12 +26,14 @@ public class UserDbStorageTest {
     private JdbcTemplate jdbcTemplate;
     @Autowired
     private UserDbStorage userDbStorage;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
     @BeforeEach
     public void resetDatabase() {
 
-        jdbcTemplate.update("DELETE FROM users");
-        jdbcTemplate.update("ALTER TABLE users ALTER COLUMN user_id RESTART WITH 1");
+        userDbStorage.deleteAllUsers(); // Удаляет и ID пользователей из битовой карты
+        userDbStorage.resetUserIdSequence();
     }
 
     @Test
@@ -62,4 +70,81 @@ public class UserDbStorageTest {
         retrievedUser = userDbStorage.getUserById(user.getId());
         assertThat(retrievedUser).isPresent().hasValueSatisfying(u -> assertThat(u).hasFieldOrPropertyWithValue("name", "Updated User"));
     }
+
+    @Test
+    public void testGetUsersPage() {
+        for (int i = 1; i <= 5; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@example.com");
+            user.setLogin("user" + i);
+            user.setBirthday(LocalDate.of(1990, 1, i));
+            userDbStorage.createUser(user);
+        }
+        jdbcTemplate.update("INSERT INTO friends (user_id, friend_id) VALUES (3, 1), (3, 5)");
+
+        List<User> firstPage = userDbStorage.getUsersPage(0, 2);
+        List<User> secondPage = userDbStorage.getUsersPage(2, 2);
+        List<User> lastPage = userDbStorage.getUsersPage(4, 2);
+
+        assertThat(firstPage).extracting(User::getId).containsExactly(1, 2);
+        assertThat(secondPage).extracting(User::getId).containsExactly(3, 4);
+        assertThat(secondPage.get(0).getFriends()).containsExactlyInAnyOrder(1, 5);
+        assertThat(lastPage).extracting(User::getId).containsExactly(5);
+        // Страница, поиск по ID и полная выгрузка возвращают друзей одним неизменяемым типом.
+        assertThat(firstPage.get(0).getFriends()).isInstanceOf(SortedIntSet.class).isEmpty();
+        assertThat(secondPage.get(0).getFriends()).isInstanceOf(SortedIntSet.class);
+        assertThat(userDbStorage.getUserById(3)).hasValueSatisfying(user ->
+                assertThat(user.getFriends()).isInstanceOf(SortedIntSet.class).containsExactly(1, 5));
+        assertThat(userDbStorage.getUserById(1)).hasValueSatisfying(user ->
+                assertThat(user.getFriends()).isInstanceOf(SortedIntSet.class).isEmpty());
+        assertThat(userDbStorage.getAllUsers()).allSatisfy(user ->
+                assertThat(user.getFriends()).isInstanceOf(SortedIntSet.class));
+    }
+
+    @Test
+    public void testGetAllUsersLoadsFriendsInSingleStatement() {
+        for (int i = 1; i <= 20; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@example.com");
+            user.setLogin("user" + i);
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            userDbStorage.createUser(user);
+        }
+        jdbcTemplate.update("INSERT INTO friends (user_id, friend_id) VALUES (1, 3), (1, 2), (2, 1), (20, 19)");
+        List<User> users = new ArrayList<>();
+
+        assertThat(countStatements(() -> users.addAll(userDbStorage.getAllUsers()))).isEqualTo(1);
+        assertThat(users).hasSize(20);
+        assertThat(users.get(0).getFriends()).containsExactly(2, 3);
+        assertThat(users.get(1).getFriends()).containsExactly(1);
+        assertThat(users.get(2).getFriends()).isEmpty();
+        assertThat(users.get(19).getFriends()).containsExactly(19);
+    }
+
+    @Test
+    public void testExistsByIdUsesBitmapAndFallsBackToDatabase() {
+        User user = new User();
+        user.setEmail("exists@example.com");
+        user.setLogin("exists");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        userDbStorage.createUser(user);
+
+        assertThat(countStatements(() -> assertThat(userDbStorage.existsById(user.getId())).isTrue())).isZero();
+        assertThat(countStatements(() -> assertThat(userDbStorage.existsById(999)).isFalse())).isEqualTo(1);
+    }
+
+    @Test
+    public void testRolledBackUserIsNotKnownToBitmap() {
+        User user = new User();
+        user.setEmail("rollback@example.com");
+        user.setLogin("rollback");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            userDbStorage.createUser(user);
+            status.setRollbackOnly();
+        });
+
+        assertThat(countStatements(() -> assertThat(userDbStorage.existsById(user.getId())).isFalse()))
+                .isEqualTo(1);
+    }
 }